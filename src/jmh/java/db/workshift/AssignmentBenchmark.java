@@ -0,0 +1,63 @@
+package db.workshift;
+
+import db.workshift.BenchmarkSupport.Assignment;
+import db.workshift.users.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Accepted assignments change the shop, so every iteration starts from a fresh shop
+ * and assigns a batch of free morning shifts, the smallest shop has 33 of them.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 20, batchSize = AssignmentBenchmark.BATCH_SIZE)
+@Measurement(iterations = 50, batchSize = AssignmentBenchmark.BATCH_SIZE)
+public class AssignmentBenchmark {
+
+    static final int BATCH_SIZE = 30;
+
+    @Param({"100", "1000", "10000"})
+    int shiftsPerShop;
+
+    @Param({"10", "100"})
+    int usersPerShop;
+
+    private List<User> users;
+    private Shop shop;
+    private List<Assignment> accepted;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void createUsers() {
+        users = BenchmarkSupport.users(usersPerShop);
+    }
+
+    @Setup(Level.Iteration)
+    public void createShop() {
+        shop = BenchmarkSupport.shopWithHistory(shiftsPerShop, users);
+        accepted = BenchmarkSupport.acceptedAssignments(shop, users);
+        next = 0;
+    }
+
+    @Benchmark
+    public Shift assignUserToShift() throws Exception {
+        Assignment assignment = accepted.get(next++);
+        shop.assignUserToShift(assignment.user(), assignment.shift());
+        return assignment.shift();
+    }
+
+}
@@ -0,0 +1,80 @@
+package db.workshift;
+
+import db.workshift.users.User;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Shops for the benchmarks: three 8 hour shifts a day, the night shift of every day is taken by the users in turn.
+ * The morning shift of a day can be given to a user who is off duty (accepted)
+ * or to the user who just worked the night (rejected by the 24 hour rule).
+ */
+final class BenchmarkSupport {
+
+    static final LocalDateTime MIDNIGHT_JAN_1_2024 = LocalDate.of(2024, 1, 1).atStartOfDay();
+    static final Duration EIGHT_HOURS = Duration.ofHours(8);
+
+    private BenchmarkSupport() {
+    }
+
+    record Assignment(Shift shift, User user) {
+    }
+
+    static ConfigurableApplicationContext startApplication(String... args) {
+        List<String> allArgs = new ArrayList<>();
+        allArgs.add("--logging.level.root=WARN");
+        allArgs.addAll(List.of(args));
+        return new SpringApplicationBuilder(WorkshiftApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(allArgs.toArray(String[]::new));
+    }
+
+    static List<User> users(int count) {
+        return IntStream.range(0, count)
+                .mapToObj(n -> User.create("user " + n))
+                .toList();
+    }
+
+    static Shop shopWithHistory(int shifts, List<User> users) {
+        Shop shop = Shop.create();
+        users.forEach(shop::addUser);
+        for (int n = 0; n < shifts; n++) {
+            Shift shift = shop.addShift(MIDNIGHT_JAN_1_2024.plus(EIGHT_HOURS.multipliedBy(n)), EIGHT_HOURS);
+            if (shift.getStart().getHour() == 0) {
+                shift.assign(users.get(day(shift) % users.size()));
+            }
+        }
+        return shop;
+    }
+
+    static List<Assignment> acceptedAssignments(Shop shop, List<User> users) {
+        return morningAssignments(shop, users, users.size() / 2);
+    }
+
+    static List<Assignment> rejectedAssignments(Shop shop, List<User> users) {
+        return morningAssignments(shop, users, 0);
+    }
+
+    private static List<Assignment> morningAssignments(Shop shop, List<User> users, int userOffset) {
+        List<Assignment> assignments = new ArrayList<>();
+        for (Shift shift : shop.getAvailableShifts()) {
+            if (shift.getStart().getHour() == 8) {
+                assignments.add(new Assignment(shift, users.get((day(shift) + userOffset) % users.size())));
+            }
+        }
+        return assignments;
+    }
+
+    private static int day(Shift shift) {
+        return (int) Duration.between(MIDNIGHT_JAN_1_2024, shift.getStart()).toDays();
+    }
+
+}
@@ -0,0 +1,107 @@
+package db.workshift;
+
+import db.workshift.users.User;
+import db.workshift.users.UserRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Assign latency with a growing number of shops in the database,
+ * the cross-shop conflict check should only look at the users own shifts, so latency should stay flat.
+ * The benchmarked user has worked a shift a day for years before, the check should only look at the shifts
+ * around the new one, so that history should not count either.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ConflictCheckBenchmark {
+
+    private static final int USERS = 100;
+    private static final int BATCH = 1_000;
+    private static final int HISTORY_DAYS = 10_000;
+
+    @Param({"10", "1000", "100000"})
+    int shops;
+
+    private ConfigurableApplicationContext context;
+    private ShopRepository shopRepository;
+    private UserRepository userRepository;
+    private WorkshiftBrain workshiftBrain;
+
+    private Shop shop;
+    private Shift shift;
+    private User user;
+    private int day;
+
+    @Setup(Level.Trial)
+    public void startApplication() {
+        context = BenchmarkSupport.startApplication();
+        shopRepository = context.getBean(ShopRepository.class);
+        userRepository = context.getBean(UserRepository.class);
+        workshiftBrain = context.getBean(WorkshiftBrain.class);
+
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < USERS; i++) {
+            users.add(userRepository.save(User.create("user " + i)));
+        }
+
+        /* every shop gets one shift, assigned round-robin, one day apart per user */
+        List<Shop> batch = new ArrayList<>(BATCH);
+        for (int i = 0; i < shops; i++) {
+            Shop seeded = Shop.create();
+            seeded.addShift(BenchmarkSupport.MIDNIGHT_JAN_1_2024.plusDays(i / USERS), BenchmarkSupport.EIGHT_HOURS);
+            seeded.getAvailableShifts().get(0).assign(users.get(i % USERS));
+            batch.add(seeded);
+            if (batch.size() == BATCH) {
+                shopRepository.saveAll(batch);
+                batch.clear();
+            }
+        }
+        shopRepository.saveAll(batch);
+
+        /* the benchmarked user worked a shift every day before, in a shop of its own */
+        user = userRepository.save(User.create("benchmark user"));
+        Shop history = Shop.create();
+        for (int i = 1; i <= HISTORY_DAYS; i++) {
+            history.addShift(BenchmarkSupport.MIDNIGHT_JAN_1_2024.minusDays(i), BenchmarkSupport.EIGHT_HOURS);
+        }
+        history.getAvailableShifts().forEach(worked -> worked.assign(user));
+        shopRepository.save(history);
+    }
+
+    /**
+     * a shop of its own for every assignment, on a day of its own after the history
+     */
+    @Setup(Level.Invocation)
+    public void newShopWithAvailableShift() {
+        Shop newShop = Shop.create();
+        newShop.addUser(user);
+        newShop.addShift(BenchmarkSupport.MIDNIGHT_JAN_1_2024.plusDays(day++), BenchmarkSupport.EIGHT_HOURS);
+        shop = shopRepository.save(newShop);
+        shift = shop.getAvailableShifts().get(0);
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() {
+        context.close();
+    }
+
+    @Benchmark
+    public Shift assignUserToShift() throws Exception {
+        return workshiftBrain.assignUserToShift(shop.getId(), shift.getId(), user.getId());
+    }
+
+}
@@ -0,0 +1,62 @@
+package db.workshift;
+
+import db.workshift.BenchmarkSupport.Assignment;
+import db.workshift.users.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The rule pipeline of the default and of the fully configured rules, over candidates every rule accepts
+ * so no rule is skipped. Compare the full rules against the default ones for the cost of the optional rules.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class RulePipelineBenchmark {
+
+    private static final int CANDIDATES = 100;
+
+    @Param({"1000"})
+    int shiftsPerShop;
+
+    @Param({"10"})
+    int usersPerShop;
+
+    @Param({"default", "full"})
+    String ruleSet;
+
+    private RulePipeline pipeline;
+    private Map<User, UserSchedule> schedules;
+    private List<Assignment> candidates;
+    private int next;
+
+    @Setup
+    public void createPipeline() {
+        List<User> users = BenchmarkSupport.users(usersPerShop);
+        Shop shop = BenchmarkSupport.shopWithHistory(shiftsPerShop, users);
+        ShopRules rules = ruleSet.equals("full") ? new ShopRules(24, 8, 5, 1, 60) : ShopRules.DEFAULT;
+        pipeline = rules.compile();
+        schedules = new HashMap<>();
+        users.forEach(user -> schedules.put(user, shop.copyOfSchedule(user)));
+        candidates = BenchmarkSupport.acceptedAssignments(shop, users).subList(0, CANDIDATES);
+    }
+
+    @Benchmark
+    public Optional<RuleViolation> evaluate() {
+        Assignment candidate = candidates.get(next++ % CANDIDATES);
+        return pipeline.evaluate(candidate.shift(), schedules.get(candidate.user()), NoConflictingShiftRule.NOT_CHECKED);
+    }
+
+}
@@ -0,0 +1,84 @@
+package db.workshift;
+
+import db.workshift.BenchmarkSupport.Assignment;
+import db.workshift.users.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Evaluating the rules with violations as results against evaluating them with exceptions,
+ * over a shuffled mix of candidate assignments of which the given percentage is rejected.
+ * Neither path changes the shop. With 5 rules the shop adds a rest and a weekly limit that accept the same
+ * candidates as the 3 default rules, the cheaper rest rule rejects them first.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class RuleViolationBenchmark {
+
+    private static final int CANDIDATES = 100;
+
+    @Param({"1000"})
+    int shiftsPerShop;
+
+    @Param({"10"})
+    int usersPerShop;
+
+    @Param({"50", "90", "99"})
+    int rejectedPercent;
+
+    @Param({"3", "5"})
+    int rules;
+
+    private Shop shop;
+    private List<Assignment> candidates;
+    private int next;
+
+    @Setup
+    public void createShop() {
+        List<User> users = BenchmarkSupport.users(usersPerShop);
+        shop = BenchmarkSupport.shopWithHistory(shiftsPerShop, users);
+        if (rules == 5) {
+            shop.setRules(new ShopRules(24, 8, 5, 1, 60));
+        }
+        List<Assignment> rejected = BenchmarkSupport.rejectedAssignments(shop, users);
+        List<Assignment> accepted = BenchmarkSupport.acceptedAssignments(shop, users);
+
+        candidates = new ArrayList<>(CANDIDATES);
+        for (int n = 0; n < CANDIDATES; n++) {
+            candidates.add(n < rejectedPercent ? rejected.get(n % rejected.size()) : accepted.get(n % accepted.size()));
+        }
+        Collections.shuffle(candidates, new Random(42));
+    }
+
+    @Benchmark
+    public Optional<RuleViolation> checkRules() {
+        Assignment candidate = candidates.get(next++ % CANDIDATES);
+        return shop.checkRules(candidate.user(), candidate.shift());
+    }
+
+    @Benchmark
+    public Exception validateRules() {
+        Assignment candidate = candidates.get(next++ % CANDIDATES);
+        try {
+            shop.validateRules(candidate.user(), candidate.shift());
+            return null;
+        } catch (RuleViolationException e) {
+            return e;
+        }
+    }
+
+}
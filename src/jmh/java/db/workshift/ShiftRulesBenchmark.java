@@ -0,0 +1,81 @@
+package db.workshift;
+
+import db.workshift.BenchmarkSupport.Assignment;
+import db.workshift.users.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The pure domain rules on a shop with history, nothing here changes the shop
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ShiftRulesBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    int shiftsPerShop;
+
+    @Param({"10", "100"})
+    int usersPerShop;
+
+    private Shop shop;
+    private Shift shift;
+    private Shift otherShift;
+    private Period period;
+    private List<Assignment> rejected;
+    private int next;
+
+    @Setup
+    public void createShop() {
+        List<User> users = BenchmarkSupport.users(usersPerShop);
+        shop = BenchmarkSupport.shopWithHistory(shiftsPerShop, users);
+        rejected = BenchmarkSupport.rejectedAssignments(shop, users);
+
+        shift = Shift.create(BenchmarkSupport.MIDNIGHT_JAN_1_2024, BenchmarkSupport.EIGHT_HOURS);
+        otherShift = Shift.create(BenchmarkSupport.MIDNIGHT_JAN_1_2024.plusHours(4), BenchmarkSupport.EIGHT_HOURS);
+        period = new Period(otherShift.getStart(), otherShift.getEnd());
+    }
+
+    @Benchmark
+    public Duration overlap() {
+        return shift.overlap(period);
+    }
+
+    @Benchmark
+    public long overlapSeconds() {
+        return shift.overlapSeconds(otherShift.getStartEpochSecond(), otherShift.getEndEpochSecond());
+    }
+
+    @Benchmark
+    public boolean hasOverlap() {
+        return shift.hasOverlap(otherShift);
+    }
+
+    @Benchmark
+    public List<Shift> getAvailableShifts() {
+        return shop.getAvailableShifts();
+    }
+
+    @Benchmark
+    public Exception rejectedAssignUserToShift() {
+        Assignment assignment = rejected.get(next++ % rejected.size());
+        try {
+            shop.assignUserToShift(assignment.user(), assignment.shift());
+            throw new IllegalStateException("assignment was expected to be rejected");
+        } catch (RuleViolationException e) {
+            return e;
+        }
+    }
+
+}
@@ -0,0 +1,79 @@
+package db.workshift;
+
+import db.workshift.users.User;
+import db.workshift.users.UserRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Adding a user to a shop through the controller, in a transaction like the open session of a web request,
+ * so logging the shop could load its shifts. Run with the gc profiler, the allocation per request
+ * should not grow with the shops shifts, at info or at warn.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ShopControllerBenchmark {
+
+    private static final int USERS_PER_SHOP = 10;
+
+    @Param({"100", "1000"})
+    int shiftsPerShop;
+
+    @Param({"INFO", "WARN"})
+    String logLevel;
+
+    private ConfigurableApplicationContext context;
+    private ShopController shopController;
+    private TransactionTemplate transactionTemplate;
+
+    private String shopId;
+    private final List<String> userIds = new ArrayList<>();
+    private int next;
+
+    @Setup(Level.Trial)
+    public void startApplication() {
+        // the logger is enabled at info but nothing reaches the console, only building the log lines is measured
+        context = BenchmarkSupport.startApplication(
+                "--logging.level.db.workshift.ShopController=" + logLevel,
+                "--logging.threshold.console=OFF");
+        shopController = context.getBean(ShopController.class);
+        transactionTemplate = context.getBean(TransactionTemplate.class);
+
+        List<User> users = new ArrayList<>();
+        context.getBean(UserRepository.class).saveAll(BenchmarkSupport.users(USERS_PER_SHOP)).forEach(users::add);
+        Shop shop = context.getBean(ShopRepository.class).save(BenchmarkSupport.shopWithHistory(shiftsPerShop, users));
+
+        shopId = shop.getId().toString();
+        users.forEach(user -> userIds.add(user.getId().toString()));
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() {
+        context.close();
+    }
+
+    /**
+     * the users are employees already, so the request reads and logs but has nothing to write
+     */
+    @Benchmark
+    public ShopView addUser() {
+        String userId = userIds.get(next++ % USERS_PER_SHOP);
+        return transactionTemplate.execute(status -> shopController.addUser(shopId, userId));
+    }
+
+}
@@ -0,0 +1,57 @@
+package db.workshift;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Finding an available shift by id and listing the available shifts in start order, in shops of growing size.
+ * The shops indexes are built in the setup, like on the first lookup after loading a shop.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ShopLookupBenchmark {
+
+    private static final int LOOKUPS = 1024;
+
+    @Param({"1000", "10000", "100000"})
+    int shiftsPerShop;
+
+    private Shop shop;
+    private List<UUID> ids;
+    private int next;
+
+    @Setup
+    public void createShop() {
+        shop = BenchmarkSupport.shopWithHistory(shiftsPerShop, BenchmarkSupport.users(10));
+
+        List<UUID> available = new ArrayList<>(shop.getAvailableShifts().stream().map(Shift::getId).toList());
+        Collections.shuffle(available, new Random(42));
+        ids = available.subList(0, Math.min(LOOKUPS, available.size()));
+    }
+
+    @Benchmark
+    public Optional<Shift> findShift() {
+        return shop.findShift(ids.get(next++ % ids.size()));
+    }
+
+    @Benchmark
+    public List<Shift> getAvailableShifts() {
+        return shop.getAvailableShifts();
+    }
+
+}
@@ -0,0 +1,92 @@
+package db.workshift;
+
+import db.workshift.BenchmarkSupport.Assignment;
+import db.workshift.users.User;
+import db.workshift.users.UserRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The full assign path, rules plus jpa against the embedded h2,
+ * in a database holding shopsPerDatabase shops of the same size as the one assigned in.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, batchSize = AssignmentBenchmark.BATCH_SIZE)
+@Measurement(iterations = 20, batchSize = AssignmentBenchmark.BATCH_SIZE)
+public class WorkshiftBrainBenchmark {
+
+    private static final int USERS_PER_SHOP = 10;
+
+    @Param({"100", "1000"})
+    int shiftsPerShop;
+
+    @Param({"10", "100", "1000"})
+    int shopsPerDatabase;
+
+    private ConfigurableApplicationContext context;
+    private ShopRepository shopRepository;
+    private UserRepository userRepository;
+    private WorkshiftBrain workshiftBrain;
+
+    private Shop shop;
+    private List<Assignment> accepted;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void startApplication() {
+        context = BenchmarkSupport.startApplication();
+        shopRepository = context.getBean(ShopRepository.class);
+        userRepository = context.getBean(UserRepository.class);
+        workshiftBrain = context.getBean(WorkshiftBrain.class);
+
+        for (int n = 0; n < shopsPerDatabase; n++) {
+            persistShopWithHistory();
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void createShop() {
+        List<User> users = new ArrayList<>();
+        shop = persistShopWithHistory(users);
+        accepted = BenchmarkSupport.acceptedAssignments(shop, users);
+        next = 0;
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() {
+        context.close();
+    }
+
+    @Benchmark
+    public Shift assignUserToShift() throws Exception {
+        Assignment assignment = accepted.get(next++);
+        return workshiftBrain.assignUserToShift(shop.getId(), assignment.shift().getId(), assignment.user().getId());
+    }
+
+    private Shop persistShopWithHistory() {
+        return persistShopWithHistory(new ArrayList<>());
+    }
+
+    private Shop persistShopWithHistory(List<User> users) {
+        userRepository.saveAll(BenchmarkSupport.users(USERS_PER_SHOP)).forEach(users::add);
+        return shopRepository.save(BenchmarkSupport.shopWithHistory(shiftsPerShop, users));
+    }
+
+}
@@ -0,0 +1,224 @@
+package db.workshift;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import db.workshift.users.User;
+import db.workshift.users.UserRepository;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Load test harness, like everyone grabbing shifts when a roster opens.
+ * Starts the application on a random port, seeds shops with the coming days of shifts, and lets every client
+ * list the available shifts of a random shop and try to take one, in a loop until the time is up.
+ * Run it with and without -PvirtualThreads to compare platform and virtual request threads:
+ * <pre>
+ * ./gradlew loadTest -PloadTestArgs="--clients=2000 --seconds=60 --file-db"
+ * ./gradlew loadTest -PloadTestArgs="--clients=2000 --seconds=60 --file-db" -PvirtualThreads
+ * </pre>
+ * Any other --arguments are handed to spring, e.g. --WORKSHIFT_DB_POOL_SIZE=40
+ */
+public class LoadTest {
+
+    private static final int DAYS = 12;
+    private static final Duration EIGHT_HOURS = Duration.ofHours(8);
+
+    private final int clients;
+    private final int seconds;
+    private final HttpClient httpClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
+    private final ObjectMapper objectMapper;
+    private final String baseUrl;
+    private final List<UUID> shopIds;
+    private final List<UUID> userIds;
+
+    private final Endpoint list = new Endpoint("list available shifts");
+    private final Endpoint assign = new Endpoint("assign shift");
+
+    private LoadTest(int clients, int seconds, ConfigurableApplicationContext context, List<UUID> shopIds, List<UUID> userIds) {
+        this.clients = clients;
+        this.seconds = seconds;
+        this.objectMapper = context.getBean(ObjectMapper.class);
+        this.baseUrl = "http://localhost:%s/api/shops/".formatted(context.getEnvironment().getProperty("local.server.port"));
+        this.shopIds = shopIds;
+        this.userIds = userIds;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = options(args);
+        int clients = Integer.parseInt(options.getOrDefault("clients", "1000"));
+        int seconds = Integer.parseInt(options.getOrDefault("seconds", "30"));
+        int shops = Integer.parseInt(options.getOrDefault("shops", "100"));
+
+        List<String> springArgs = new ArrayList<>(List.of(args));
+        springArgs.add("--server.port=0");
+        springArgs.add("--logging.level.root=WARN");
+        if (options.containsKey("file-db")) {
+            springArgs.add("--spring.datasource.url=jdbc:h2:file:./build/loadtest/workshift");
+            springArgs.add("--spring.jpa.hibernate.ddl-auto=create-drop");
+        }
+
+        try (ConfigurableApplicationContext context = SpringApplication.run(WorkshiftApplication.class, springArgs.toArray(String[]::new))) {
+            boolean virtualThreads = context.getEnvironment().getProperty("spring.threads.virtual.enabled", Boolean.class, false);
+            System.out.printf("java %s, %s request threads, %s clients, %s shops, %s seconds%n",
+                    Runtime.version(), virtualThreads ? "virtual" : "platform", clients, shops, seconds);
+
+            LoadTest loadTest = new LoadTest(clients, seconds, context, seedShops(context, shops), seedUsers(context, clients));
+            loadTest.run();
+        }
+    }
+
+    private void run() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        ExecutorService executor = Executors.newFixedThreadPool(clients);
+        for (int n = 0; n < clients; n++) {
+            UUID userId = userIds.get(n);
+            executor.execute(() -> {
+                while (System.nanoTime() < deadline) {
+                    grabShift(userId);
+                }
+            });
+        }
+        executor.shutdown();
+        executor.awaitTermination(seconds + 60L, TimeUnit.SECONDS);
+
+        list.print(seconds);
+        assign.print(seconds);
+    }
+
+    private void grabShift(UUID userId) {
+        UUID shopId = shopIds.get(ThreadLocalRandom.current().nextInt(shopIds.size()));
+
+        HttpResponse<String> available = list.send(httpClient, HttpRequest.newBuilder()
+                .uri(URI.create(baseUrl + "%s/shifts?assigned=false&size=20".formatted(shopId)))
+                .GET()
+                .build());
+        if (available == null || available.statusCode() != 200) {
+            return;
+        }
+
+        JsonNode shifts = readTree(available.body()).get("shifts");
+        if (shifts.isEmpty()) {
+            return;
+        }
+        String shiftId = shifts.get(ThreadLocalRandom.current().nextInt(shifts.size())).get("id").asText();
+
+        assign.send(httpClient, HttpRequest.newBuilder()
+                .uri(URI.create(baseUrl + "%s/shift/%s/assign/%s".formatted(shopId, shiftId, userId)))
+                .PUT(HttpRequest.BodyPublishers.noBody())
+                .build());
+    }
+
+    private JsonNode readTree(String body) {
+        try {
+            return objectMapper.readTree(body);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static List<UUID> seedShops(ConfigurableApplicationContext context, int shops) {
+        ShopRepository shopRepository = context.getBean(ShopRepository.class);
+        LocalDateTime tomorrow = LocalDate.now().plusDays(1).atStartOfDay();
+
+        List<UUID> shopIds = new ArrayList<>();
+        for (int n = 0; n < shops; n++) {
+            Shop shop = Shop.create();
+            for (int shift = 0; shift < DAYS * 3; shift++) {
+                shop.addShift(tomorrow.plus(EIGHT_HOURS.multipliedBy(shift)), EIGHT_HOURS);
+            }
+            shopIds.add(shopRepository.save(shop).getId());
+        }
+        return shopIds;
+    }
+
+    private static List<UUID> seedUsers(ConfigurableApplicationContext context, int clients) {
+        UserRepository userRepository = context.getBean(UserRepository.class);
+
+        List<UUID> userIds = new ArrayList<>();
+        for (int n = 0; n < clients; n++) {
+            userIds.add(userRepository.save(User.create("client " + n)).getId());
+        }
+        return userIds;
+    }
+
+    static Map<String, String> options(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (arg.startsWith("--")) {
+                String[] option = arg.substring(2).split("=", 2);
+                options.put(option[0], option.length == 2 ? option[1] : "");
+            }
+        }
+        return options;
+    }
+
+    /**
+     * requests, statuses and latencies of one endpoint, status -1 counts requests that failed without a response
+     */
+    private static class Endpoint {
+
+        private final String name;
+        private final Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+        private final Queue<Long> latencies = new ConcurrentLinkedQueue<>();
+
+        Endpoint(String name) {
+            this.name = name;
+        }
+
+        HttpResponse<String> send(HttpClient httpClient, HttpRequest request) {
+            long start = System.nanoTime();
+            HttpResponse<String> response = null;
+            try {
+                response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                /* counted as status -1 */
+            }
+            latencies.add(System.nanoTime() - start);
+            statuses.computeIfAbsent(response != null ? response.statusCode() : -1, status -> new LongAdder()).increment();
+            return response;
+        }
+
+        void print(int seconds) {
+            long[] sorted = latencies.stream().mapToLong(Long::longValue).sorted().toArray();
+            Map<Integer, Long> counts = new TreeMap<>();
+            statuses.forEach((status, count) -> counts.put(status, count.sum()));
+
+            System.out.printf("%-22s %8d requests %9.1f req/s   p50 %7.2f ms   p95 %7.2f ms   p99 %7.2f ms   statuses %s%n",
+                    name, sorted.length, (double) sorted.length / seconds,
+                    millis(sorted, 0.50), millis(sorted, 0.95), millis(sorted, 0.99), counts);
+        }
+
+        private static double millis(long[] sorted, double percentile) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            return sorted[(int) Math.min(sorted.length - 1, Math.round(percentile * sorted.length))] / 1_000_000.0;
+        }
+
+    }
+
+}
@@ -0,0 +1,170 @@
+package db.workshift;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Startup benchmark, like a node added when the load goes up. Starts the application in a fresh process for each
+ * variant a number of times, takes the time from starting the process to the first answered request and the
+ * resident memory of the process right after it, and prints the medians. Linux only, the rss is read from /proc.
+ * <pre>
+ * ./gradlew startupBenchmark
+ * ./gradlew startupBenchmark -Paot -PstartupBenchmarkArgs="--runs=10"
+ * ./gradlew startupBenchmark -Pnative
+ * </pre>
+ * The variants are the plain jvm, the lazy profile and the class data sharing archive of the cdsArchive task,
+ * with -Paot also the aot processed context, with -Pnative also the native image. The archive is trained in the
+ * mode built, with -Paot on the aot processed context.
+ */
+public class StartupBenchmark {
+
+    private static final Duration STARTUP_TIMEOUT = Duration.ofMinutes(2);
+    private static final String MAIN_CLASS = "db.workshift.WorkshiftApplication";
+
+    private final HttpClient httpClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(1)).build();
+    private final int runs;
+    private final Path logs;
+
+    private StartupBenchmark(int runs, Path logs) {
+        this.runs = runs;
+        this.logs = logs;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = LoadTest.options(args);
+        int runs = Integer.parseInt(options.getOrDefault("runs", "5"));
+        String jar = options.get("jar");
+        String cdsArchive = options.get("cds-archive");
+        boolean aot = options.containsKey("aot");
+        String nativeImage = options.get("native");
+
+        String java = ProcessHandle.current().info().command().orElse("java");
+        List<String> jvm = List.of(java, "-cp", jar);
+        List<String> cds = List.of(java, "-XX:SharedArchiveFile=" + cdsArchive, "-cp", jar);
+        String lazy = "--spring.profiles.active=lazy";
+
+        List<Variant> variants = new ArrayList<>();
+        variants.add(new Variant("jvm", command(jvm, MAIN_CLASS)));
+        variants.add(new Variant("jvm lazy", command(jvm, MAIN_CLASS, lazy)));
+        if (new File(cdsArchive).exists()) {
+            variants.add(new Variant("cds", command(cds, MAIN_CLASS)));
+            variants.add(new Variant("cds lazy", command(cds, MAIN_CLASS, lazy)));
+        }
+        if (aot) {
+            variants.add(new Variant("aot", command(jvm, "-Dspring.aot.enabled=true", MAIN_CLASS)));
+            variants.add(new Variant("aot cds", command(cds, "-Dspring.aot.enabled=true", MAIN_CLASS)));
+            variants.add(new Variant("aot cds lazy", command(cds, "-Dspring.aot.enabled=true", MAIN_CLASS, lazy)));
+        }
+        if (nativeImage != null && new File(nativeImage).canExecute()) {
+            variants.add(new Variant("native", List.of(nativeImage)));
+            variants.add(new Variant("native lazy", List.of(nativeImage, lazy)));
+        }
+
+        Path logs = Files.createDirectories(Path.of(jar).resolveSibling("logs"));
+        System.out.printf("java %s, %s runs per variant, logs in %s%n", Runtime.version(), runs, logs);
+        StartupBenchmark benchmark = new StartupBenchmark(runs, logs);
+        for (Variant variant : variants) {
+            benchmark.run(variant);
+        }
+    }
+
+    private static List<String> command(List<String> launcher, String... arguments) {
+        List<String> command = new ArrayList<>(launcher);
+        command.addAll(List.of(arguments));
+        return command;
+    }
+
+    private void run(Variant variant) throws Exception {
+        long[] startups = new long[runs];
+        long[] rss = new long[runs];
+        for (int run = 0; run < runs; run++) {
+            Start start = start(variant, run);
+            startups[run] = start.nanos();
+            rss[run] = start.rssKilobytes();
+        }
+        System.out.printf("%-14s first request p50 %7.1f ms   min %7.1f ms   rss p50 %6.1f MB%n",
+                variant.name(), median(startups) / 1_000_000.0, min(startups) / 1_000_000.0, median(rss) / 1024.0);
+    }
+
+    private Start start(Variant variant, int run) throws Exception {
+        int port = freePort();
+        List<String> command = command(variant.command(), "--server.port=" + port, "--logging.level.root=WARN");
+        File log = logs.resolve("%s-%s.log".formatted(variant.name().replace(' ', '-'), run)).toFile();
+
+        long started = System.nanoTime();
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).redirectOutput(log).start();
+        try {
+            HttpRequest health = HttpRequest.newBuilder(URI.create("http://localhost:%s/actuator/health".formatted(port))).build();
+            long deadline = started + STARTUP_TIMEOUT.toNanos();
+            while (!answers(health)) {
+                if (!process.isAlive() || System.nanoTime() > deadline) {
+                    throw new IllegalStateException("%s did not start, see %s".formatted(variant.name(), log));
+                }
+                Thread.sleep(5);
+            }
+            return new Start(System.nanoTime() - started, rssKilobytes(process.pid()));
+        } finally {
+            process.destroy();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                process.destroyForcibly().waitFor();
+            }
+        }
+    }
+
+    private boolean answers(HttpRequest request) throws InterruptedException {
+        try {
+            return httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static long rssKilobytes(long pid) throws IOException {
+        for (String line : Files.readAllLines(Path.of("/proc/%s/status".formatted(pid)))) {
+            if (line.startsWith("VmRSS:")) {
+                return Long.parseLong(line.substring("VmRSS:".length()).replace("kB", "").trim());
+            }
+        }
+        throw new IllegalStateException("no VmRSS for process " + pid);
+    }
+
+    private static long median(long[] values) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+
+    private static long min(long[] values) {
+        long min = Long.MAX_VALUE;
+        for (long value : values) {
+            min = Math.min(min, value);
+        }
+        return min;
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private record Variant(String name, List<String> command) {
+    }
+
+    private record Start(long nanos, long rssKilobytes) {
+    }
+
+}
@@ -0,0 +1,41 @@
+package db.workshift;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * A shift past the archive horizon, moved out of the shops shifts by ShiftArchiver.
+ * Read only, the shop and assignee are plain ids so reading history never loads either.
+ */
+@Entity
+@Table(indexes = @Index(name = "idx_archived_shift_shop_start", columnList = "shop_id, start"))
+public class ArchivedShift {
+
+    @Id
+    private UUID id;
+
+    @Column(name = "shop_id")
+    private UUID shopId;
+
+    private LocalDateTime start;
+    private Duration duration;
+    private LocalDateTime endTime;
+
+    @Column(name = "assignee_id")
+    private UUID assigneeId;
+
+    protected ArchivedShift() {
+    }
+
+    ShiftView toView() {
+        return new ShiftView(id, start, duration, assigneeId);
+    }
+
+}
@@ -0,0 +1,56 @@
+package db.workshift;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+public interface ArchivedShiftRepository extends CrudRepository<ArchivedShift, UUID> {
+
+    /**
+     * copies the shifts with their shop into the archive, in one insert select
+     */
+    @Modifying
+    @Query("""
+            insert into ArchivedShift (id, shopId, start, duration, endTime, assigneeId)
+            select s.id, shop.id, s.start, s.duration, s.endTime, a.id
+            from Shop shop join shop.shifts s left join s.assignee a
+            where s.id in :ids""")
+    int copyShifts(@Param("ids") Collection<UUID> ids);
+
+    /**
+     * first page of a shops archived shifts starting within [from, to)
+     */
+    @Query("""
+            select a from ArchivedShift a
+            where a.shopId = :shopId
+              and a.start >= :from and a.start < :to
+            order by a.start, a.id""")
+    List<ArchivedShift> findShopHistory(@Param("shopId") UUID shopId,
+                                        @Param("from") LocalDateTime from,
+                                        @Param("to") LocalDateTime to,
+                                        Pageable pageable);
+
+    /**
+     * following pages, keyset paginated on (start, id) like ShiftRepository.findShopShiftsAfter
+     */
+    @Query("""
+            select a from ArchivedShift a
+            where a.shopId = :shopId
+              and a.start >= :from and a.start < :to
+              and (a.start > :afterStart or (a.start = :afterStart and a.id > :afterId))
+            order by a.start, a.id""")
+    List<ArchivedShift> findShopHistoryAfter(@Param("shopId") UUID shopId,
+                                             @Param("from") LocalDateTime from,
+                                             @Param("to") LocalDateTime to,
+                                             @Param("afterStart") LocalDateTime afterStart,
+                                             @Param("afterId") UUID afterId,
+                                             Pageable pageable);
+
+}
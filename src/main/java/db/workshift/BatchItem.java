@@ -0,0 +1,28 @@
+package db.workshift;
+
+/**
+ * Outcome of one entry in a bulk request, either the shift it created or assigned, the rule it broke,
+ * or why it could not be handled at all
+ */
+public record BatchItem(Shift shift, RuleViolation violation, Exception rejection) {
+
+    static BatchItem accepted(Shift shift) {
+        return new BatchItem(shift, null, null);
+    }
+
+    /**
+     * the common rejection, so it is a plain value rather than an exception
+     */
+    static BatchItem violated(RuleViolation violation) {
+        return new BatchItem(null, violation, null);
+    }
+
+    static BatchItem rejected(Exception rejection) {
+        return new BatchItem(null, null, rejection);
+    }
+
+    public boolean isAccepted() {
+        return violation == null && rejection == null;
+    }
+
+}
@@ -0,0 +1,7 @@
+package db.workshift;
+
+/**
+ * What the api returns per entry of a bulk request, error is null when the entry was accepted
+ */
+public record BatchItemView(int index, ShiftView shift, String error) {
+}
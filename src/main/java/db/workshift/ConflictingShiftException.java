@@ -1,4 +1,9 @@
 package db.workshift;
 
-public class ConflictingShiftException extends Exception {
+public class ConflictingShiftException extends RuleViolationException {
+
+    public ConflictingShiftException() {
+        super(RuleViolation.CONFLICTING_SHIFT);
+    }
+
 }
@@ -1,4 +1,9 @@
 package db.workshift;
 
-public class DaysInRowExceededException extends Exception {
+public class DaysInRowExceededException extends RuleViolationException {
+
+    public DaysInRowExceededException() {
+        super(RuleViolation.DAYS_IN_ROW_EXCEEDED);
+    }
+
 }
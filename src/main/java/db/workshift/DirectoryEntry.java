@@ -0,0 +1,15 @@
+package db.workshift;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * A shift of a user as the ScheduleDirectory of a partitioned deployment keeps it, only the times and ids
+ */
+public record DirectoryEntry(UUID shiftId, UUID userId, UUID shopId, LocalDateTime start, LocalDateTime end) {
+
+    static DirectoryEntry of(UUID shopId, Shift shift, UUID userId) {
+        return new DirectoryEntry(shift.getId(), userId, shopId, shift.getStart(), shift.getEnd());
+    }
+
+}
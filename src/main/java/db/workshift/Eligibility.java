@@ -0,0 +1,12 @@
+package db.workshift;
+
+import db.workshift.users.User;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Which of the shops employees can take a shift, and the first rule each of the others would break
+ */
+public record Eligibility(Shift shift, List<User> eligible, Map<User, RuleViolation> ineligible) {
+}
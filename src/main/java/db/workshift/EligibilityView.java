@@ -0,0 +1,25 @@
+package db.workshift;
+
+import db.workshift.users.User;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * What the api returns for the eligibility of a shift, the users only by id
+ */
+public record EligibilityView(UUID shiftId, List<UUID> eligible, List<Ineligible> ineligible) {
+
+    public record Ineligible(UUID userId, String reason) {
+    }
+
+    static EligibilityView of(Eligibility eligibility) {
+        return new EligibilityView(
+                eligibility.shift().getId(),
+                eligibility.eligible().stream().map(User::getId).toList(),
+                eligibility.ineligible().entrySet().stream()
+                        .map(entry -> new Ineligible(entry.getKey().getId(), entry.getValue().getReason()))
+                        .toList());
+    }
+
+}
@@ -0,0 +1,70 @@
+package db.workshift;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * The deltas waiting to be sent to one subscriber of a ShiftFeed, at most capacity of them. A delta for a shift
+ * already waiting replaces it, the latest state of a shift is all a subscriber needs. A subscriber so far behind
+ * that the buffer fills up anyway loses what is waiting and is told to reload the shifts instead, and nothing more
+ * is kept for it until that is sent. A slow subscriber costs a fixed amount of memory, however busy the shop.
+ */
+final class FeedBuffer {
+
+    /**
+     * what to send next, a heartbeat when one is due and a resync first when the buffer overflowed
+     */
+    record Drained(boolean heartbeat, boolean resync, List<ShiftDelta> deltas) {
+
+        boolean isEmpty() {
+            return !heartbeat && !resync && deltas.isEmpty();
+        }
+    }
+
+    private final int capacity;
+
+    /**
+     * by shift id, in the order of their latest change
+     */
+    private final LinkedHashMap<UUID, ShiftDelta> waiting = new LinkedHashMap<>();
+    private boolean overflowed;
+    private boolean heartbeat;
+
+    FeedBuffer(int capacity) {
+        this.capacity = capacity;
+    }
+
+    synchronized void offer(ShiftDelta delta) {
+        if (overflowed) {
+            return;
+        }
+        waiting.remove(delta.shiftId());
+        if (waiting.size() == capacity) {
+            waiting.clear();
+            overflowed = true;
+            return;
+        }
+        waiting.put(delta.shiftId(), delta);
+    }
+
+    /**
+     * a heartbeat is due, it is sent once however often this is called before the next drain
+     */
+    synchronized void heartbeat() {
+        heartbeat = true;
+    }
+
+    synchronized Drained drain() {
+        Drained drained = new Drained(heartbeat, overflowed, List.copyOf(waiting.values()));
+        waiting.clear();
+        overflowed = false;
+        heartbeat = false;
+        return drained;
+    }
+
+    synchronized boolean isEmpty() {
+        return !heartbeat && !overflowed && waiting.isEmpty();
+    }
+
+}
@@ -1,4 +1,13 @@
 package db.workshift;
 
-public class HoursExceededException extends Exception {
+public class HoursExceededException extends RuleViolationException {
+
+    public HoursExceededException() {
+        this(RuleViolation.HOURS_EXCEEDED);
+    }
+
+    HoursExceededException(RuleViolation violation) {
+        super(violation);
+    }
+
 }
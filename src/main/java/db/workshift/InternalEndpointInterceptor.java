@@ -0,0 +1,46 @@
+package db.workshift;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+/**
+ * Guards the internal paths the nodes of a partitioned deployment call each other on. They do not exist on a
+ * single node, and in a partitioned deployment only a request carrying workshift.partition.secret gets through.
+ */
+class InternalEndpointInterceptor implements HandlerInterceptor {
+
+    private static final Logger LOG = LoggerFactory.getLogger(InternalEndpointInterceptor.class);
+
+    static final String SECRET_HEADER = "X-Workshift-Partition-Secret";
+
+    private final ShopPartitions partitions;
+
+    InternalEndpointInterceptor(ShopPartitions partitions) {
+        this.partitions = partitions;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws IOException {
+        if (!partitions.isPartitioned()) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return false;
+        }
+        String secret = request.getHeader(SECRET_HEADER);
+        // compared in constant time, a mismatch tells nothing about how much of it matched
+        if (secret == null || !MessageDigest.isEqual(
+                secret.getBytes(StandardCharsets.UTF_8), partitions.secret().getBytes(StandardCharsets.UTF_8))) {
+            LOG.warn("internal request without the partition secret from <{}>", request.getRemoteAddr());
+            response.sendError(HttpServletResponse.SC_FORBIDDEN);
+            return false;
+        }
+        return true;
+    }
+
+}
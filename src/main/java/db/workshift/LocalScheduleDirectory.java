@@ -0,0 +1,53 @@
+package db.workshift;
+
+import db.workshift.users.User;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Every shop is on this node, the shifts table is the directory and the changes are in it already
+ */
+class LocalScheduleDirectory implements ScheduleDirectory {
+
+    private final ShiftRepository shiftRepository;
+
+    LocalScheduleDirectory(ShiftRepository shiftRepository) {
+        this.shiftRepository = shiftRepository;
+    }
+
+    @Override
+    public boolean hasConflictingShift(User user, Shift shift, Shift givenAway) {
+        /*
+        A user can not work in multiple shops at the same time,
+        only the users own shifts around the new one are looked at, not every shop
+        */
+        return shiftRepository.existsOverlapping(user, shift.getStart(), shift.getEnd(),
+                shift.getStart().minus(Shift.MAXIMUM_DURATION), givenAway != null ? givenAway.getId() : null);
+    }
+
+    @Override
+    public Map<User, UserSchedule> assignedShiftsAround(List<Shift> requestedShifts, Collection<User> users) {
+        Map<User, UserSchedule> assignedShifts = new HashMap<>();
+
+        if (requestedShifts.isEmpty() || users.isEmpty()) {
+            return assignedShifts;
+        }
+
+        LocalDateTime earliestStart = requestedShifts.stream().map(Shift::getStart).min(LocalDateTime::compareTo).orElseThrow();
+        LocalDateTime latestEnd = requestedShifts.stream().map(Shift::getEnd).max(LocalDateTime::compareTo).orElseThrow();
+
+        shiftRepository.findOverlapping(users, earliestStart, latestEnd, earliestStart.minus(Shift.MAXIMUM_DURATION))
+                .forEach(shift -> assignedShifts.computeIfAbsent(shift.getAssignee(), assignee -> new UserSchedule()).add(shift));
+        return assignedShifts;
+    }
+
+    @Override
+    public void changed(UUID shopId, Collection<Shift> assigned, Map<Shift, UUID> unassigned) {
+    }
+
+}
@@ -0,0 +1,43 @@
+package db.workshift;
+
+import java.util.function.Predicate;
+
+/**
+ * At most so many days in a row with a shift starting on them
+ */
+final class MaximumDaysInRowRule extends ShiftRule {
+
+    private final int maximumDays;
+
+    MaximumDaysInRowRule(int maximumDays) {
+        this.maximumDays = maximumDays;
+    }
+
+    @Override
+    boolean isBrokenBy(Shift shift, UserSchedule.Around schedule, Predicate<Shift> conflictsElsewhere) {
+        long day = shift.getStartEpochDay();
+        int daysBefore = schedule.consecutiveDaysBefore(day, maximumDays);
+        int daysAfter = schedule.consecutiveDaysAfter(day, maximumDays);
+
+        return daysBefore + daysAfter + 1 > maximumDays;
+    }
+
+    @Override
+    RuleViolation violation() {
+        return RuleViolation.DAYS_IN_ROW_EXCEEDED;
+    }
+
+    /**
+     * the shifts of the day itself, the days before and after are walked from there
+     */
+    @Override
+    long reachSeconds() {
+        return Period.SECONDS_PER_DAY;
+    }
+
+    @Override
+    int cost() {
+        return 3;
+    }
+
+}
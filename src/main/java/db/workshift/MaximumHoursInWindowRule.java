@@ -0,0 +1,46 @@
+package db.workshift;
+
+import java.util.function.Predicate;
+
+/**
+ * At most so many hours in any window of so many hours around the shift
+ */
+final class MaximumHoursInWindowRule extends ShiftRule {
+
+    private final long windowSeconds;
+    private final long maximumHours;
+    private final RuleViolation violation;
+
+    MaximumHoursInWindowRule(int windowHours, int maximumHours, RuleViolation violation) {
+        this.windowSeconds = windowHours * Period.SECONDS_PER_HOUR;
+        this.maximumHours = maximumHours;
+        this.violation = violation;
+    }
+
+    @Override
+    boolean isBrokenBy(Shift shift, UserSchedule.Around schedule, Predicate<Shift> conflictsElsewhere) {
+        long shiftSeconds = shift.getEndEpochSecond() - shift.getStartEpochSecond();
+        long windowStart = shift.getStartEpochSecond() - (windowSeconds - shiftSeconds);
+        long windowEnd = shift.getStartEpochSecond() + windowSeconds;
+
+        long secondsInWindow = schedule.overlapSeconds(windowStart, windowEnd);
+
+        return (secondsInWindow + shiftSeconds) / Period.SECONDS_PER_HOUR > maximumHours;
+    }
+
+    @Override
+    RuleViolation violation() {
+        return violation;
+    }
+
+    @Override
+    long reachSeconds() {
+        return windowSeconds;
+    }
+
+    @Override
+    int cost() {
+        return windowSeconds > Period.SECONDS_PER_DAY ? 4 : 2;
+    }
+
+}
@@ -0,0 +1,44 @@
+package db.workshift;
+
+import java.util.function.Predicate;
+
+/**
+ * At most so many hours in any 7 days overlapping the shift
+ */
+final class MaximumHoursPerWeekRule extends ShiftRule {
+
+    static final long WEEK_SECONDS = 7 * Period.SECONDS_PER_DAY;
+
+    private final long maximumSeconds;
+
+    MaximumHoursPerWeekRule(int maximumHours) {
+        this.maximumSeconds = maximumHours * Period.SECONDS_PER_HOUR;
+    }
+
+    @Override
+    boolean isBrokenBy(Shift shift, UserSchedule.Around schedule, Predicate<Shift> conflictsElsewhere) {
+        long shiftSeconds = shift.getEndEpochSecond() - shift.getStartEpochSecond();
+        // within the limit even with all the hours of the week before and after it, no window can be over it
+        if (schedule.overlapSeconds(shift.getStartEpochSecond() - WEEK_SECONDS, shift.getEndEpochSecond() + WEEK_SECONDS)
+                + shiftSeconds <= maximumSeconds) {
+            return false;
+        }
+        return schedule.mostSecondsInWindow(shift, WEEK_SECONDS) > maximumSeconds;
+    }
+
+    @Override
+    RuleViolation violation() {
+        return RuleViolation.WEEKLY_HOURS_EXCEEDED;
+    }
+
+    @Override
+    long reachSeconds() {
+        return WEEK_SECONDS;
+    }
+
+    @Override
+    int cost() {
+        return 4;
+    }
+
+}
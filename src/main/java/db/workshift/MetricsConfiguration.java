@@ -0,0 +1,35 @@
+package db.workshift;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Sql statements per endpoint, the rule and operation metrics are in RuleMetrics and WorkshiftBrain.
+ * All of it is scraped from /actuator/prometheus.
+ */
+@Configuration
+class MetricsConfiguration implements WebMvcConfigurer {
+
+    private final StatementCounter statementCounter = new StatementCounter();
+    private final MeterRegistry registry;
+
+    MetricsConfiguration(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Bean
+    HibernatePropertiesCustomizer statementCounterCustomizer() {
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, statementCounter);
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new StatementMetricsInterceptor(statementCounter, this.registry)).addPathPatterns("/api/**");
+    }
+
+}
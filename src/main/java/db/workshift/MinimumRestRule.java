@@ -0,0 +1,37 @@
+package db.workshift;
+
+import java.util.function.Predicate;
+
+/**
+ * At least so many hours off between two shifts
+ */
+final class MinimumRestRule extends ShiftRule {
+
+    private final long restSeconds;
+
+    MinimumRestRule(int restHours) {
+        this.restSeconds = restHours * Period.SECONDS_PER_HOUR;
+    }
+
+    @Override
+    boolean isBrokenBy(Shift shift, UserSchedule.Around schedule, Predicate<Shift> conflictsElsewhere) {
+        return schedule.overlapSeconds(
+                shift.getStartEpochSecond() - restSeconds, shift.getEndEpochSecond() + restSeconds) > 0;
+    }
+
+    @Override
+    RuleViolation violation() {
+        return RuleViolation.REST_TOO_SHORT;
+    }
+
+    @Override
+    long reachSeconds() {
+        return restSeconds;
+    }
+
+    @Override
+    int cost() {
+        return 1;
+    }
+
+}
@@ -0,0 +1,41 @@
+package db.workshift;
+
+import java.util.function.Predicate;
+
+/**
+ * A user can not work in multiple shops at the same time
+ */
+final class NoConflictingShiftRule extends ShiftRule {
+
+    /**
+     * for checking only the shops own rules
+     */
+    static final Predicate<Shift> NOT_CHECKED = shift -> false;
+
+    @Override
+    boolean isBrokenBy(Shift shift, UserSchedule.Around schedule, Predicate<Shift> conflictsElsewhere) {
+        return conflictsElsewhere.test(shift);
+    }
+
+    @Override
+    RuleViolation violation() {
+        return RuleViolation.CONFLICTING_SHIFT;
+    }
+
+    /**
+     * the other shops are asked, not the schedule
+     */
+    @Override
+    long reachSeconds() {
+        return 0;
+    }
+
+    /**
+     * last, it may have to ask the db
+     */
+    @Override
+    int cost() {
+        return 10;
+    }
+
+}
@@ -0,0 +1,48 @@
+package db.workshift;
+
+import db.workshift.users.UserReplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Joins this node to a partitioned deployment when workshift.partition.nodes lists more than one node,
+ * see ShopPartitions. On a single node the directory is the shifts table, nothing is routed or replicated and the
+ * internal paths answer 404. The calls to the other nodes carry the shared secret the internal paths require.
+ */
+@Configuration
+class PartitionConfiguration implements WebMvcConfigurer {
+
+    private final ShopPartitions partitions;
+    private final RestClient restClient;
+
+    PartitionConfiguration(ShopPartitions partitions, RestClient.Builder restClientBuilder) {
+        this.partitions = partitions;
+        this.restClient = partitions.isPartitioned()
+                ? restClientBuilder.defaultHeader(InternalEndpointInterceptor.SECRET_HEADER, partitions.secret()).build()
+                : restClientBuilder.build();
+    }
+
+    @Bean
+    ScheduleDirectory scheduleDirectory(ShiftRepository shiftRepository) {
+        return partitions.isPartitioned()
+                ? new PartitionedScheduleDirectory(partitions, restClient)
+                : new LocalScheduleDirectory(shiftRepository);
+    }
+
+    @Bean
+    UserReplication userReplication() {
+        return partitions.isPartitioned() ? new PartitionedUserReplication(partitions, restClient) : UserReplication.NONE;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new InternalEndpointInterceptor(partitions)).addPathPatterns("/internal/**");
+        if (partitions.isPartitioned()) {
+            registry.addInterceptor(new ShopRoutingInterceptor(partitions, restClient)).addPathPatterns("/api/shops/**");
+        }
+    }
+
+}
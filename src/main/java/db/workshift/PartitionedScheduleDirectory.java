@@ -0,0 +1,160 @@
+package db.workshift;
+
+import db.workshift.users.User;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.Assert;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.net.URI;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Asks the home node of each user, see ShopPartitions, about their shifts in the shops of every partition.
+ * A check is one call to one node however many partitions there are, a batch one call per home node of its users.
+ * The changes of a transaction are recorded on the home nodes right before it commits. A home node refusing one,
+ * because another partition recorded an overlapping shift for the user meanwhile, fails the commit as a concurrent
+ * change, the retry then sees the conflict. Home nodes that did record the change are told to undo it when the
+ * transaction does not commit after all.
+ */
+class PartitionedScheduleDirectory implements ScheduleDirectory {
+
+    private static final Logger LOG = LoggerFactory.getLogger(PartitionedScheduleDirectory.class);
+
+    private final ShopPartitions partitions;
+    private final RestClient restClient;
+
+    PartitionedScheduleDirectory(ShopPartitions partitions, RestClient restClient) {
+        this.partitions = partitions;
+        this.restClient = restClient;
+    }
+
+    @Override
+    public boolean hasConflictingShift(User user, Shift shift, Shift givenAway) {
+        URI uri = UriComponentsBuilder.fromUri(partitions.nodeOf(user.getId()))
+                .path("/internal/directory/users/{userId}/conflicts")
+                .queryParam("start", shift.getStart())
+                .queryParam("end", shift.getEnd())
+                .queryParamIfPresent("excluding", Optional.ofNullable(givenAway).map(Shift::getId))
+                .buildAndExpand(user.getId())
+                .toUri();
+        return Boolean.TRUE.equals(restClient.get().uri(uri).retrieve().body(Boolean.class));
+    }
+
+    @Override
+    public Map<User, UserSchedule> assignedShiftsAround(List<Shift> requestedShifts, Collection<User> users) {
+        Map<User, UserSchedule> assignedShifts = new HashMap<>();
+
+        if (requestedShifts.isEmpty() || users.isEmpty()) {
+            return assignedShifts;
+        }
+
+        LocalDateTime earliestStart = requestedShifts.stream().map(Shift::getStart).min(LocalDateTime::compareTo).orElseThrow();
+        LocalDateTime latestEnd = requestedShifts.stream().map(Shift::getEnd).max(LocalDateTime::compareTo).orElseThrow();
+
+        Map<UUID, User> usersById = users.stream().collect(Collectors.toMap(User::getId, Function.identity(), (a, b) -> a));
+        Map<URI, List<UUID>> userIdsByHome = usersById.keySet().stream().collect(Collectors.groupingBy(partitions::nodeOf));
+
+        userIdsByHome.forEach((home, userIds) -> {
+            DirectoryEntry[] entries = restClient.post()
+                    .uri(home.resolve("/internal/directory/around"))
+                    .body(new ScheduleQuery(userIds, earliestStart, latestEnd))
+                    .retrieve()
+                    .body(DirectoryEntry[].class);
+            for (DirectoryEntry entry : entries) {
+                // the times are all the rules need of a shift in another shop
+                Shift shift = Shift.create(entry.start(), Duration.between(entry.start(), entry.end()));
+                assignedShifts.computeIfAbsent(usersById.get(entry.userId()), assignee -> new UserSchedule()).add(shift);
+            }
+        });
+        return assignedShifts;
+    }
+
+    @Override
+    public void changed(UUID shopId, Collection<Shift> assigned, Map<Shift, UUID> unassigned) {
+        if (assigned.isEmpty() && unassigned.isEmpty()) {
+            return;
+        }
+        Assert.state(TransactionSynchronizationManager.isSynchronizationActive(), "Schedule changes need a transaction");
+
+        Map<URI, List<DirectoryEntry>> assignedByHome = new LinkedHashMap<>();
+        Map<URI, List<DirectoryEntry>> releasedByHome = new LinkedHashMap<>();
+        for (Shift shift : assigned) {
+            UUID userId = shift.getAssignee().getId();
+            assignedByHome.computeIfAbsent(partitions.nodeOf(userId), home -> new ArrayList<>()).add(DirectoryEntry.of(shopId, shift, userId));
+            releasedByHome.computeIfAbsent(partitions.nodeOf(userId), home -> new ArrayList<>());
+        }
+        unassigned.forEach((shift, userId) -> {
+            releasedByHome.computeIfAbsent(partitions.nodeOf(userId), home -> new ArrayList<>()).add(DirectoryEntry.of(shopId, shift, userId));
+            assignedByHome.computeIfAbsent(partitions.nodeOf(userId), home -> new ArrayList<>());
+        });
+
+        Map<URI, ScheduleChange> changes = new LinkedHashMap<>();
+        assignedByHome.forEach((home, entries) -> changes.put(home, new ScheduleChange(entries, releasedByHome.get(home))));
+        TransactionSynchronizationManager.registerSynchronization(new Recording(changes));
+    }
+
+    private void apply(URI home, ScheduleChange change) {
+        restClient.put()
+                .uri(home.resolve("/internal/directory/changes"))
+                .body(change)
+                .retrieve()
+                .onStatus(status -> status.isSameCodeAs(HttpStatus.CONFLICT), (request, response) -> {
+                    throw new OptimisticLockingFailureException("Conflicting shift recorded on " + home);
+                })
+                .toBodilessEntity();
+    }
+
+    /**
+     * records the changes of one transaction on their home nodes
+     */
+    private final class Recording implements TransactionSynchronization {
+
+        private final Map<URI, ScheduleChange> changes;
+        private final List<URI> recorded = new ArrayList<>();
+
+        Recording(Map<URI, ScheduleChange> changes) {
+            this.changes = changes;
+        }
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            changes.forEach((home, change) -> {
+                apply(home, change);
+                recorded.add(home);
+            });
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            if (status == STATUS_COMMITTED) {
+                return;
+            }
+            for (URI home : recorded) {
+                try {
+                    apply(home, changes.get(home).inverse());
+                } catch (RestClientException | OptimisticLockingFailureException e) {
+                    LOG.warn("undoing schedule change on <{}> failed", home, e);
+                }
+            }
+        }
+    }
+
+}
@@ -0,0 +1,109 @@
+package db.workshift;
+
+import db.workshift.users.User;
+import db.workshift.users.UserReplication;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.client.RestClientException;
+
+import java.net.URI;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Stores the user on every other node once it is stored on this one, any of them can hold the shops assigning
+ * the user shifts. Storing a user is an idempotent put, so it is retried, and the nodes still not reached are
+ * kept and replayed on a schedule until they take the user. Those are kept in memory, a restart forgets them.
+ */
+class PartitionedUserReplication implements UserReplication {
+
+    private static final Logger LOG = LoggerFactory.getLogger(PartitionedUserReplication.class);
+
+    private static final int MAXIMUM_ATTEMPTS = 3;
+    private static final long BACKOFF_MILLIS = 50;
+
+    private final ShopPartitions partitions;
+    private final RestClient restClient;
+    private final Map<URI, Set<User>> pending = new ConcurrentHashMap<>();
+
+    PartitionedUserReplication(ShopPartitions partitions, RestClient restClient) {
+        this.partitions = partitions;
+        this.restClient = restClient;
+    }
+
+    /**
+     * after the commit when called in a transaction, right away otherwise
+     */
+    @Override
+    public void created(User user) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    replicate(user);
+                }
+            });
+        } else {
+            replicate(user);
+        }
+    }
+
+    private void replicate(User user) {
+        for (URI node : partitions.otherNodes()) {
+            if (!storeWithRetry(node, user)) {
+                LOG.warn("user <{}> not replicated to <{}>, replaying later", user.getId(), node);
+                pending.computeIfAbsent(node, key -> ConcurrentHashMap.newKeySet()).add(user);
+            }
+        }
+    }
+
+    @Scheduled(initialDelayString = "${workshift.partition.replay-interval:PT10S}", fixedDelayString = "${workshift.partition.replay-interval:PT10S}")
+    void replayPending() {
+        pending.forEach((node, users) -> users.removeIf(user -> store(node, user)));
+    }
+
+    private boolean storeWithRetry(URI node, User user) {
+        for (int attempt = 1; attempt <= MAXIMUM_ATTEMPTS; attempt++) {
+            if (store(node, user)) {
+                return true;
+            }
+            if (attempt < MAXIMUM_ATTEMPTS && !backOff(attempt)) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    private boolean store(URI node, User user) {
+        try {
+            restClient.put()
+                    .uri(node.resolve("/internal/users/" + user.getId()))
+                    .body(Map.of("name", user.getName()))
+                    .retrieve()
+                    .toBodilessEntity();
+            return true;
+        } catch (RestClientException e) {
+            LOG.debug("storing user <{}> on <{}> failed <{}>", user.getId(), node, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * @return false when interrupted, the user is replayed later then
+     */
+    private static boolean backOff(int attempt) {
+        try {
+            Thread.sleep(BACKOFF_MILLIS << (attempt - 1));
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+}
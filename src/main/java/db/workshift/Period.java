@@ -1,9 +1,13 @@
 package db.workshift;
 
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 
 public class Period {
 
+    static final long SECONDS_PER_HOUR = 60 * 60;
+    static final long SECONDS_PER_DAY = 24 * SECONDS_PER_HOUR;
+
     LocalDateTime start;
     LocalDateTime end;
 
@@ -12,5 +16,12 @@ public class Period {
         this.end = end;
     }
 
+    long getStartEpochSecond() {
+        return start.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    long getEndEpochSecond() {
+        return end.toEpochSecond(ZoneOffset.UTC);
+    }
 
 }
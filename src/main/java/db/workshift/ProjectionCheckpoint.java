@@ -0,0 +1,111 @@
+package db.workshift;
+
+import jakarta.persistence.CollectionTable;
+import jakarta.persistence.Column;
+import jakarta.persistence.ElementCollection;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.MapKeyColumn;
+import jakarta.persistence.Version;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * How far into the journal a projection got, committed together with the rows it projected,
+ * so the projection is a snapshot a restart resumes from instead of replaying the journal.
+ * The positions skipped below it are kept as gaps, they are events of transactions still running
+ * and projected once committed, or of rolled back ones and given up after a while.
+ */
+@Entity
+public class ProjectionCheckpoint {
+
+    /**
+     * a jump in the positions larger than this is taken for positions never used, like a db skipping ahead
+     * on restart, rather than for that many transactions still running
+     */
+    static final int MAXIMUM_GAP = 10_000;
+
+    @Id
+    private String name;
+
+    /**
+     * two projectors picking up the same events, only the first one commits
+     */
+    @Version
+    private Long version;
+
+    private long position;
+
+    /**
+     * when the last event projected was recorded
+     */
+    private Instant recordedAt;
+
+    /**
+     * the positions below position not projected yet, with when they were first skipped
+     */
+    @ElementCollection
+    @CollectionTable(name = "projection_checkpoint_gap", joinColumns = @JoinColumn(name = "projection"))
+    @MapKeyColumn(name = "journal_position")
+    @Column(name = "skipped_at")
+    private Map<Long, Instant> gaps = new HashMap<>();
+
+    protected ProjectionCheckpoint() {
+    }
+
+    ProjectionCheckpoint(String name) {
+        this.name = name;
+        this.recordedAt = Instant.EPOCH;
+    }
+
+    long getPosition() {
+        return position;
+    }
+
+    Instant getRecordedAt() {
+        return recordedAt;
+    }
+
+    Set<Long> getGaps() {
+        return gaps.keySet();
+    }
+
+    /**
+     * Moves past the events read after the position, in journal order, the positions in between are kept as
+     * gaps. Events of gaps that committed since fill them.
+     */
+    void advance(List<ShiftEvent> filled, List<ShiftEvent> read, Instant now) {
+        for (ShiftEvent event : filled) {
+            gaps.remove(event.getPosition());
+            recorded(event);
+        }
+        for (ShiftEvent event : read) {
+            if (event.getPosition() - position <= MAXIMUM_GAP) {
+                for (long skipped = position + 1; skipped < event.getPosition(); skipped++) {
+                    gaps.put(skipped, now);
+                }
+            }
+            position = event.getPosition();
+            recorded(event);
+        }
+    }
+
+    /**
+     * gives up the gaps skipped before the time, the positions of inserts rolled back are never used again
+     */
+    void expireGaps(Instant skippedBefore) {
+        gaps.values().removeIf(skippedAt -> skippedAt.isBefore(skippedBefore));
+    }
+
+    private void recorded(ShiftEvent event) {
+        if (event.getRecordedAt().isAfter(recordedAt)) {
+            recordedAt = event.getRecordedAt();
+        }
+    }
+
+}
@@ -0,0 +1,6 @@
+package db.workshift;
+
+import org.springframework.data.repository.CrudRepository;
+
+public interface ProjectionCheckpointRepository extends CrudRepository<ProjectionCheckpoint, String> {
+}
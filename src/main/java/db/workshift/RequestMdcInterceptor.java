@@ -0,0 +1,64 @@
+package db.workshift;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.MDC;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Puts the request id and the shop and user ids of the path into the MDC for the log pattern to print,
+ * only ids, so nothing is looked up or formatted for it. Enabled by workshift.logging.mdc, see application-mdc.properties
+ */
+class RequestMdcInterceptor implements AsyncHandlerInterceptor {
+
+    static final String REQUEST_ID_HEADER = "X-Request-Id";
+    static final String REQUEST_ID = "requestId";
+    static final String SHOP_ID = "shopId";
+    static final String USER_ID = "userId";
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        String requestId = request.getHeader(REQUEST_ID_HEADER);
+        MDC.put(REQUEST_ID, requestId != null ? requestId : UUID.randomUUID().toString());
+
+        @SuppressWarnings("unchecked")
+        Map<String, String> pathVariables = (Map<String, String>) request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+        // the id of the shop paths is the shops, user ids only appear as userId
+        if (pathVariables != null && handler instanceof HandlerMethod method && method.getBeanType() == ShopController.class) {
+            putIfPresent(SHOP_ID, pathVariables.get("id"));
+            putIfPresent(USER_ID, pathVariables.get("userId"));
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        clear();
+    }
+
+    /**
+     * a streamed response leaves the request thread before completing, see ShiftExporter
+     */
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        clear();
+    }
+
+    private static void clear() {
+        MDC.remove(REQUEST_ID);
+        MDC.remove(SHOP_ID);
+        MDC.remove(USER_ID);
+    }
+
+    private static void putIfPresent(String key, String value) {
+        if (value != null) {
+            MDC.put(key, value);
+        }
+    }
+
+}
@@ -0,0 +1,9 @@
+package db.workshift;
+
+import java.util.List;
+
+/**
+ * Outcome of filling a shops available shifts automatically, the shifts it assigned and the ones still open
+ */
+public record Roster(List<Shift> assigned, List<Shift> unassigned) {
+}
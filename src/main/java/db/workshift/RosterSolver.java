@@ -0,0 +1,221 @@
+package db.workshift;
+
+import db.workshift.users.User;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.Predicate;
+import java.util.stream.IntStream;
+
+/**
+ * Fills the available shifts of a shop with its employees, under the same rules as assigning them one by one.
+ * Every worker on the pool fills the shifts in start order, giving each to the allowed employee with the fewest
+ * hours so far, ties broken by the workers own random. What is left unfilled it then tries to fill by handing one of
+ * an employees shifts around it to another employee. The roster filling the most shifts within the time budget wins.
+ */
+class RosterSolver {
+
+    private final ForkJoinPool pool;
+
+    RosterSolver(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    record Assignment(Shift shift, User user) {
+    }
+
+    /**
+     * @param assignedElsewhere the employees shifts in any shop around the available shifts, for the conflict rule
+     * @return the assignments to make, ordered by shift start, the shop itself is not changed
+     */
+    List<Assignment> solve(Shop shop, List<User> employees, Map<User, UserSchedule> assignedElsewhere, Duration budget) {
+        List<Shift> shifts = shop.getAvailableShifts();
+        if (shifts.isEmpty() || employees.isEmpty()) {
+            return List.of();
+        }
+
+        // read from the shop here, the attempts only read and copy these
+        Map<User, UserSchedule> assignedInShop = new HashMap<>();
+        for (User employee : employees) {
+            assignedInShop.put(employee, shop.copyOfSchedule(employee));
+        }
+
+        RulePipeline rules = shop.getRulePipeline();
+
+        long deadline = System.nanoTime() + budget.toNanos();
+        List<Callable<List<Assignment>>> attempts = IntStream.range(0, pool.getParallelism())
+                .<Callable<List<Assignment>>>mapToObj(seed ->
+                        () -> new Attempt(rules, shifts, employees, assignedInShop, assignedElsewhere, seed, deadline).run())
+                .toList();
+
+        List<Assignment> best = List.of();
+        for (Future<List<Assignment>> attempt : pool.invokeAll(attempts)) {
+            List<Assignment> roster = result(attempt);
+            if (roster.size() > best.size()) {
+                best = roster;
+            }
+        }
+        return best;
+    }
+
+    private static List<Assignment> result(Future<List<Assignment>> attempt) {
+        try {
+            return attempt.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while solving roster", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Solving roster failed", e.getCause());
+        }
+    }
+
+    /**
+     * one worker, with its own copies of the employees schedules
+     */
+    private static final class Attempt {
+
+        private final RulePipeline rules;
+        private final List<Shift> shifts;
+        private final List<User> employees;
+        private final SplittableRandom random;
+        private final long deadline;
+
+        private final Map<User, UserSchedule> inShop = new HashMap<>();
+        private final Map<User, UserSchedule> everywhere = new HashMap<>();
+        private final Map<User, Predicate<Shift>> conflictsElsewhere = new HashMap<>();
+        private final Map<User, Long> assignedSeconds = new HashMap<>();
+        private final Map<Shift, User> roster = new LinkedHashMap<>();
+
+        Attempt(RulePipeline rules, List<Shift> shifts, List<User> employees,
+                Map<User, UserSchedule> assignedInShop, Map<User, UserSchedule> assignedElsewhere,
+                long seed, long deadline) {
+            this.rules = rules;
+            this.shifts = shifts;
+            this.employees = employees;
+            this.random = new SplittableRandom(seed);
+            this.deadline = deadline;
+
+            for (User employee : employees) {
+                inShop.put(employee, assignedInShop.get(employee).copy());
+                UserSchedule elsewhere = assignedElsewhere.get(employee);
+                UserSchedule employeeEverywhere = elsewhere != null ? elsewhere.copy() : new UserSchedule();
+                everywhere.put(employee, employeeEverywhere);
+                conflictsElsewhere.put(employee, shift ->
+                        employeeEverywhere.overlapSeconds(shift.getStartEpochSecond(), shift.getEndEpochSecond()) > 0);
+                assignedSeconds.put(employee, 0L);
+            }
+        }
+
+        List<Assignment> run() {
+            List<Shift> unfilled = new ArrayList<>();
+            for (Shift shift : shifts) {
+                if (timeIsUp()) {
+                    break;
+                }
+                User employee = leastLoadedAllowed(shift, null);
+                if (employee != null) {
+                    assign(employee, shift);
+                } else {
+                    unfilled.add(shift);
+                }
+            }
+
+            for (Shift shift : unfilled) {
+                if (timeIsUp()) {
+                    break;
+                }
+                fillByHandingOver(shift);
+            }
+
+            return roster.entrySet().stream()
+                    .sorted(Comparator.comparingLong(entry -> entry.getKey().getStartEpochSecond()))
+                    .map(entry -> new Assignment(entry.getKey(), entry.getValue()))
+                    .toList();
+        }
+
+        private boolean timeIsUp() {
+            return System.nanoTime() - deadline > 0;
+        }
+
+        private User leastLoadedAllowed(Shift shift, User excluded) {
+            User chosen = null;
+            long chosenSeconds = Long.MAX_VALUE;
+            int ties = 0;
+            for (User employee : employees) {
+                if (employee == excluded || !allowed(employee, shift)) {
+                    continue;
+                }
+                long seconds = assignedSeconds.get(employee);
+                if (seconds < chosenSeconds) {
+                    chosen = employee;
+                    chosenSeconds = seconds;
+                    ties = 1;
+                } else if (seconds == chosenSeconds && random.nextInt(++ties) == 0) {
+                    chosen = employee;
+                }
+            }
+            return chosen;
+        }
+
+        /**
+         * frees an employee for the shift by giving one of the shifts this attempt assigned them to someone else
+         */
+        private void fillByHandingOver(Shift shift) {
+            for (User employee : employees) {
+                List<Shift> around = inShop.get(employee).getShiftsStarting(
+                        shift.getStartEpochSecond() - rules.reachSeconds(),
+                        shift.getEndEpochSecond() + rules.reachSeconds());
+
+                for (Shift handedOver : around) {
+                    if (roster.get(handedOver) != employee) {
+                        continue;
+                    }
+                    unassign(employee, handedOver);
+                    if (allowed(employee, shift)) {
+                        assign(employee, shift);
+                        User taker = leastLoadedAllowed(handedOver, employee);
+                        if (taker != null) {
+                            assign(taker, handedOver);
+                            return;
+                        }
+                        unassign(employee, shift);
+                    }
+                    assign(employee, handedOver);
+                }
+            }
+        }
+
+        private boolean allowed(User employee, Shift shift) {
+            return rules.evaluate(shift, inShop.get(employee), conflictsElsewhere.get(employee)).isEmpty();
+        }
+
+        private void assign(User employee, Shift shift) {
+            inShop.get(employee).add(shift);
+            everywhere.get(employee).add(shift);
+            assignedSeconds.merge(employee, seconds(shift), Long::sum);
+            roster.put(shift, employee);
+        }
+
+        private void unassign(User employee, Shift shift) {
+            inShop.get(employee).remove(shift);
+            everywhere.get(employee).remove(shift);
+            assignedSeconds.merge(employee, -seconds(shift), Long::sum);
+            roster.remove(shift);
+        }
+
+        private static long seconds(Shift shift) {
+            return shift.getEndEpochSecond() - shift.getStartEpochSecond();
+        }
+    }
+
+}
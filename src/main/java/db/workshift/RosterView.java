@@ -0,0 +1,16 @@
+package db.workshift;
+
+import java.util.List;
+
+/**
+ * What the api returns for an automatically filled roster
+ */
+public record RosterView(List<ShiftView> assigned, List<ShiftView> unassigned) {
+
+    static RosterView of(Roster roster) {
+        return new RosterView(
+                roster.assigned().stream().map(ShiftView::of).toList(),
+                roster.unassigned().stream().map(ShiftView::of).toList());
+    }
+
+}
@@ -0,0 +1,93 @@
+package db.workshift;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * Timers for each rule, counters of the assignments each rule rejected and how many of the users shifts a check
+ * had within reach. Only the request paths instrument their shops rules, the roster solver evaluates them far
+ * too often for a timer around every rule.
+ */
+@Component
+class RuleMetrics {
+
+    private final Map<RuleViolation, Timer> timers = new EnumMap<>(RuleViolation.class);
+    private final Map<RuleViolation, Counter> violations = new EnumMap<>(RuleViolation.class);
+    private final DistributionSummary shiftsInReach;
+
+    RuleMetrics(MeterRegistry registry) {
+        for (RuleViolation violation : RuleViolation.values()) {
+            String rule = violation.name().toLowerCase(Locale.ROOT);
+            timers.put(violation, Timer.builder("workshift.rule.evaluation")
+                    .description("Time evaluating one rule for one shift")
+                    .tag("rule", rule)
+                    .register(registry));
+            violations.put(violation, Counter.builder("workshift.rule.violations")
+                    .description("Assignments rejected by the rule")
+                    .tag("rule", rule)
+                    .register(registry));
+        }
+        shiftsInReach = DistributionSummary.builder("workshift.rule.shifts.scanned")
+                .description("Shifts of the users schedule within reach of the rules, per check")
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    void violated(RuleViolation violation) {
+        violations.get(violation).increment();
+    }
+
+    void evaluating(Shift shift, UserSchedule.Around schedule, long reachSeconds) {
+        shiftsInReach.record(schedule.countStartingBefore(shift.getEndEpochSecond() + reachSeconds));
+    }
+
+    ShiftRule timed(ShiftRule rule) {
+        return new TimedRule(rule, timers.get(rule.violation()));
+    }
+
+    private static final class TimedRule extends ShiftRule {
+
+        private final ShiftRule rule;
+        private final Timer timer;
+
+        TimedRule(ShiftRule rule, Timer timer) {
+            this.rule = rule;
+            this.timer = timer;
+        }
+
+        @Override
+        boolean isBrokenBy(Shift shift, UserSchedule.Around schedule, Predicate<Shift> conflictsElsewhere) {
+            long start = System.nanoTime();
+            try {
+                return rule.isBrokenBy(shift, schedule, conflictsElsewhere);
+            } finally {
+                timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        }
+
+        @Override
+        RuleViolation violation() {
+            return rule.violation();
+        }
+
+        @Override
+        long reachSeconds() {
+            return rule.reachSeconds();
+        }
+
+        @Override
+        int cost() {
+            return rule.cost();
+        }
+    }
+
+}
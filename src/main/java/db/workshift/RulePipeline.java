@@ -0,0 +1,84 @@
+package db.workshift;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Predicate;
+
+/**
+ * The rules of a shop ordered cheapest first, evaluation stops at the first broken rule. The cross-shop rule
+ * always comes last and is left out when the conflicts are not checked. The schedule is searched once per check,
+ * for the shifts within reach of the rule reaching furthest, and the rules scan from there.
+ * Immutable, so one pipeline can be shared by threads.
+ */
+final class RulePipeline {
+
+    private final ShiftRule[] rules;
+
+    /**
+     * the rules before the cross-shop rule, all of them when there is none
+     */
+    private final int shopRuleCount;
+
+    private final long reachSeconds;
+
+    /**
+     * null unless instrumented
+     */
+    private final RuleMetrics metrics;
+
+    /**
+     * the result for each rule when broken, built once rather than on every check
+     */
+    private final List<Optional<RuleViolation>> violations;
+
+    RulePipeline(List<ShiftRule> rules) {
+        this(rules, null);
+    }
+
+    private RulePipeline(List<ShiftRule> rules, RuleMetrics metrics) {
+        this.metrics = metrics;
+        this.rules = rules.stream()
+                .sorted(Comparator.comparing(RulePipeline::checksOtherShops).thenComparingInt(ShiftRule::cost))
+                .toArray(ShiftRule[]::new);
+        this.shopRuleCount = (int) Arrays.stream(this.rules).filter(rule -> !checksOtherShops(rule)).count();
+        this.reachSeconds = Arrays.stream(this.rules).mapToLong(ShiftRule::reachSeconds).max().orElse(0);
+        this.violations = Arrays.stream(this.rules)
+                .map(rule -> Optional.of(rule.violation()))
+                .toList();
+    }
+
+    /**
+     * the same rules, each one timed by the metrics
+     */
+    RulePipeline instrumented(RuleMetrics metrics) {
+        return new RulePipeline(Arrays.stream(rules).map(metrics::timed).toList(), metrics);
+    }
+
+    /**
+     * how far before the start or after the end of a shift the rules look at the other shifts
+     */
+    long reachSeconds() {
+        return reachSeconds;
+    }
+
+    Optional<RuleViolation> evaluate(Shift shift, UserSchedule schedule, Predicate<Shift> conflictsElsewhere) {
+        UserSchedule.Around around = schedule.around(shift, reachSeconds);
+        if (metrics != null) {
+            metrics.evaluating(shift, around, reachSeconds);
+        }
+        int checked = conflictsElsewhere == NoConflictingShiftRule.NOT_CHECKED ? shopRuleCount : rules.length;
+        for (int index = 0; index < checked; index++) {
+            if (rules[index].isBrokenBy(shift, around, conflictsElsewhere)) {
+                return violations.get(index);
+            }
+        }
+        return Optional.empty();
+    }
+
+    private static boolean checksOtherShops(ShiftRule rule) {
+        return rule.violation() == RuleViolation.CONFLICTING_SHIFT;
+    }
+
+}
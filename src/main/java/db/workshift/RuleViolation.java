@@ -0,0 +1,38 @@
+package db.workshift;
+
+/**
+ * The rules a user can break by taking a shift, with the reason the api gives for it
+ */
+public enum RuleViolation {
+
+    HOURS_EXCEEDED("Hours exceeded within 24 hour window"),
+    /**
+     * the hours limit of a shop counting them in a window other than 24 hours
+     */
+    WINDOW_HOURS_EXCEEDED("Hours exceeded within window"),
+    DAYS_IN_ROW_EXCEEDED("Days in row exceeded"),
+    CONFLICTING_SHIFT("Conflicting shift detected"),
+    REST_TOO_SHORT("Rest between shifts too short"),
+    WEEKLY_HOURS_EXCEEDED("Hours exceeded within week");
+
+    private final String reason;
+
+    RuleViolation(String reason) {
+        this.reason = reason;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+
+    RuleViolationException toException() {
+        return switch (this) {
+            case HOURS_EXCEEDED -> new HoursExceededException();
+            case WINDOW_HOURS_EXCEEDED -> new HoursExceededException(this);
+            case DAYS_IN_ROW_EXCEEDED -> new DaysInRowExceededException();
+            case CONFLICTING_SHIFT -> new ConflictingShiftException();
+            default -> new RuleViolationException(this);
+        };
+    }
+
+}
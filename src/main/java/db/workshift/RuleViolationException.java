@@ -0,0 +1,19 @@
+package db.workshift;
+
+/**
+ * A broken rule as an exception, for the callers of the throwing api, the rules themselves return RuleViolation
+ */
+public class RuleViolationException extends Exception {
+
+    private final RuleViolation violation;
+
+    public RuleViolationException(RuleViolation violation) {
+        super(violation.getReason());
+        this.violation = violation;
+    }
+
+    public RuleViolation getViolation() {
+        return violation;
+    }
+
+}
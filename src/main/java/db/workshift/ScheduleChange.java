@@ -0,0 +1,23 @@
+package db.workshift;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * The shifts a transaction assigned and released, for the home nodes of their users
+ */
+public record ScheduleChange(List<DirectoryEntry> assigned, List<DirectoryEntry> released) {
+
+    /**
+     * undoes the change, for a transaction that did not commit after all
+     */
+    ScheduleChange inverse() {
+        return new ScheduleChange(released, assigned);
+    }
+
+    List<UUID> userIds() {
+        return Stream.concat(assigned.stream(), released.stream()).map(DirectoryEntry::userId).distinct().toList();
+    }
+
+}
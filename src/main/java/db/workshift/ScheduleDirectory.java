@@ -0,0 +1,37 @@
+package db.workshift;
+
+import db.workshift.users.User;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * The shifts users have in any shop, for the rule that a user can't work in two shops at once. On a single node
+ * that is the shifts table, see LocalScheduleDirectory. In a partitioned deployment each user has a home node
+ * keeping their shifts of every partition, so the rule asks one node rather than all of them,
+ * see PartitionedScheduleDirectory.
+ */
+interface ScheduleDirectory {
+
+    /**
+     * whether the user has a shift overlapping the shift in any shop
+     *
+     * @param givenAway the shift the user gives away for it when swapping, not in the way, otherwise null
+     */
+    boolean hasConflictingShift(User user, Shift shift, Shift givenAway);
+
+    /**
+     * the shifts, in any shop, already assigned to the users within the time span of the requested shifts
+     */
+    Map<User, UserSchedule> assignedShiftsAround(List<Shift> requestedShifts, Collection<User> users);
+
+    /**
+     * the shifts assigned and unassigned by the current transaction, recorded when it commits
+     *
+     * @param unassigned the shifts taken off a user, with the id of that user
+     */
+    void changed(UUID shopId, Collection<Shift> assigned, Map<Shift, UUID> unassigned);
+
+}
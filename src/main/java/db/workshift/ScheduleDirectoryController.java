@@ -0,0 +1,56 @@
+package db.workshift;
+
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Asked by the other nodes of a partitioned deployment about the users whose home this node is,
+ * see PartitionedScheduleDirectory
+ */
+@RestController
+@RequestMapping(value = "internal/directory")
+class ScheduleDirectoryController {
+
+    private final ScheduledShifts scheduledShifts;
+
+    ScheduleDirectoryController(ScheduledShifts scheduledShifts) {
+        this.scheduledShifts = scheduledShifts;
+    }
+
+    @GetMapping(value = "/users/{userId}/conflicts")
+    public boolean hasConflictingShift(@PathVariable UUID userId,
+                                       @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start,
+                                       @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end,
+                                       @RequestParam(required = false) UUID excluding) {
+        return scheduledShifts.hasConflictingShift(userId, start, end, excluding);
+    }
+
+    @PostMapping(value = "/around")
+    public List<DirectoryEntry> around(@RequestBody ScheduleQuery query) {
+        return scheduledShifts.around(query);
+    }
+
+    /**
+     * 409 when an assigned shift overlaps one its user has already, nothing is changed then
+     */
+    @PutMapping(value = "/changes")
+    public ResponseEntity<Void> apply(@RequestBody ScheduleChange change) {
+        return scheduledShifts.apply(change)
+                ? ResponseEntity.noContent().build()
+                : ResponseEntity.status(HttpStatus.CONFLICT).build();
+    }
+
+}
@@ -0,0 +1,11 @@
+package db.workshift;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * The shifts of the users overlapping [from, to), asked of their home node
+ */
+public record ScheduleQuery(List<UUID> userIds, LocalDateTime from, LocalDateTime to) {
+}
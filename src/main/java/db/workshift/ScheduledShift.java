@@ -0,0 +1,53 @@
+package db.workshift;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * A shift of a user whose home node this is, in a shop of any partition, see ScheduledShifts
+ */
+@Entity
+@Table(indexes = @Index(name = "idx_scheduled_shift_user_start", columnList = "user_id, start"))
+public class ScheduledShift {
+
+    @Id
+    @Column(name = "shift_id")
+    private UUID shiftId;
+
+    @Column(name = "user_id")
+    private UUID userId;
+
+    @Column(name = "shop_id")
+    private UUID shopId;
+
+    private LocalDateTime start;
+
+    @Column(name = "end_time")
+    private LocalDateTime endTime;
+
+    protected ScheduledShift() {
+    }
+
+    private ScheduledShift(DirectoryEntry entry) {
+        this.shiftId = entry.shiftId();
+        this.userId = entry.userId();
+        this.shopId = entry.shopId();
+        this.start = entry.start();
+        this.endTime = entry.end();
+    }
+
+    static ScheduledShift of(DirectoryEntry entry) {
+        return new ScheduledShift(entry);
+    }
+
+    DirectoryEntry toEntry() {
+        return new DirectoryEntry(shiftId, userId, shopId, start, endTime);
+    }
+
+}
@@ -0,0 +1,39 @@
+package db.workshift;
+
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+public interface ScheduledShiftRepository extends CrudRepository<ScheduledShift, UUID> {
+
+    /**
+     * whether the user has a shift overlapping [start, end) other than the excluded one, on the (user_id, start) index,
+     * scanning only from startingAfter, as no shift is longer than Shift.MAXIMUM_DURATION
+     */
+    @Query("""
+            select count(s) > 0 from ScheduledShift s
+            where s.userId = :userId and s.start > :startingAfter and s.start < :end and s.endTime > :start
+              and (:excluded is null or s.shiftId <> :excluded)""")
+    boolean existsOverlapping(@Param("userId") UUID userId,
+                              @Param("start") LocalDateTime start,
+                              @Param("end") LocalDateTime end,
+                              @Param("startingAfter") LocalDateTime startingAfter,
+                              @Param("excluded") UUID excluded);
+
+    /**
+     * the shifts of the users overlapping [start, end), bounded like existsOverlapping
+     */
+    @Query("""
+            select s from ScheduledShift s
+            where s.userId in :userIds and s.start > :startingAfter and s.start < :end and s.endTime > :start""")
+    List<ScheduledShift> findOverlapping(@Param("userIds") Collection<UUID> userIds,
+                                         @Param("start") LocalDateTime start,
+                                         @Param("end") LocalDateTime end,
+                                         @Param("startingAfter") LocalDateTime startingAfter);
+
+}
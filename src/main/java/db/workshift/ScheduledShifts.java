@@ -0,0 +1,64 @@
+package db.workshift;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * The home node side of the ScheduleDirectory of a partitioned deployment, the shifts of the users whose home
+ * this node is, whichever partition their shops are in. Changes are applied under the users locks,
+ * so two nodes can't both record overlapping shifts for a user.
+ */
+@Component
+class ScheduledShifts {
+
+    private static final int USER_LOCK_STRIPES = 256;
+
+    private final ScheduledShiftRepository scheduledShiftRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final UserLocks userLocks = new UserLocks(USER_LOCK_STRIPES);
+
+    ScheduledShifts(ScheduledShiftRepository scheduledShiftRepository, TransactionTemplate transactionTemplate) {
+        this.scheduledShiftRepository = scheduledShiftRepository;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    boolean hasConflictingShift(UUID userId, LocalDateTime start, LocalDateTime end, UUID excluded) {
+        return scheduledShiftRepository.existsOverlapping(userId, start, end, start.minus(Shift.MAXIMUM_DURATION), excluded);
+    }
+
+    List<DirectoryEntry> around(ScheduleQuery query) {
+        return scheduledShiftRepository.findOverlapping(query.userIds(), query.from(), query.to(),
+                        query.from().minus(Shift.MAXIMUM_DURATION))
+                .stream()
+                .map(ScheduledShift::toEntry)
+                .toList();
+    }
+
+    /**
+     * Removes the released shifts, then records the assigned ones unless one of them overlaps a shift its user
+     * has already, all or nothing. Recording a change twice changes nothing the second time.
+     *
+     * @return false when an assigned shift overlaps, nothing is changed then
+     */
+    boolean apply(ScheduleChange change) {
+        try (UserLocks.Held held = userLocks.lock(change.userIds())) {
+            return transactionTemplate.execute(status -> {
+                change.released().forEach(entry -> scheduledShiftRepository.deleteById(entry.shiftId()));
+                for (DirectoryEntry entry : change.assigned()) {
+                    if (scheduledShiftRepository.existsOverlapping(entry.userId(), entry.start(), entry.end(),
+                            entry.start().minus(Shift.MAXIMUM_DURATION), entry.shiftId())) {
+                        status.setRollbackOnly();
+                        return false;
+                    }
+                    scheduledShiftRepository.save(ScheduledShift.of(entry));
+                }
+                return true;
+            });
+        }
+    }
+
+}
@@ -0,0 +1,15 @@
+package db.workshift;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * The projector, archiver and feed heartbeats run on a schedule unless turned off,
+ * tests counting statements turn it off so no job runs sql in between
+ */
+@Configuration
+@EnableScheduling
+@ConditionalOnProperty(name = "workshift.scheduling.enabled", havingValue = "true", matchIfMissing = true)
+class SchedulingConfiguration {
+}
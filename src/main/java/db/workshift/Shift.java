@@ -6,32 +6,72 @@ import org.springframework.util.Assert;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.util.UUID;
 
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_shift_assignee_start", columnList = "assignee_id, start"),
+        @Index(name = "idx_shift_end_time", columnList = "end_time")})
 public class Shift {
 
+    /**
+     * the longest a shift can be, which bounds how far back the overlap queries look for shifts starting earlier
+     */
+    static final Duration MAXIMUM_DURATION = Duration.ofHours(24);
+
+    /**
+     * assigned on creation, so the shift can be referred to before the shop holding it is flushed
+     */
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
     private UUID id;
 
+    @Version
+    private Long version;
+
     private LocalDateTime start;
     private Duration duration;
 
-    @OneToOne
+    /**
+     * stored alongside start so overlapping shifts can be range-queried in the db
+     */
+    private LocalDateTime endTime;
+
+    /**
+     * lazy, the rules only compare assignees and the api only needs the id, neither loads the user
+     */
+    @ManyToOne(fetch = FetchType.LAZY)
     private User assignee;
 
+    /**
+     * start and end as plain seconds, so the rules can do their arithmetic without allocating
+     */
+    @Transient
+    private long startEpochSecond;
+    @Transient
+    private long endEpochSecond;
+
     protected Shift() {
     }
 
     private Shift(LocalDateTime start, Duration duration) {
+        this.id = UUID.randomUUID();
         this.start = start;
         this.duration = duration;
+        this.endTime = start.plus(duration);
+        cacheEpochSeconds();
+    }
+
+    @PostLoad
+    private void cacheEpochSeconds() {
+        startEpochSecond = start.toEpochSecond(ZoneOffset.UTC);
+        endEpochSecond = endTime.toEpochSecond(ZoneOffset.UTC);
     }
 
     static Shift create(LocalDateTime start, Duration duration) {
         Assert.notNull(start, "start cannot be null");
         Assert.notNull(duration, "duration cannot be null");
+        Assert.isTrue(duration.compareTo(MAXIMUM_DURATION) <= 0, "duration cannot be longer than 24 hours");
 
         return new Shift(start, duration);
     }
@@ -45,17 +85,37 @@ public class Shift {
     }
 
     LocalDateTime getEnd() {
-        return start.plus(duration);
+        return endTime;
     }
 
     public Duration getDuration() {
         return duration;
     }
 
+    long getStartEpochSecond() {
+        return startEpochSecond;
+    }
+
+    long getEndEpochSecond() {
+        return endEpochSecond;
+    }
+
+    long getStartEpochDay() {
+        return Math.floorDiv(startEpochSecond, Period.SECONDS_PER_DAY);
+    }
+
+    User getAssignee() {
+        return assignee;
+    }
+
     public void assign(User user) {
         assignee = user;
     }
 
+    void unassign() {
+        assignee = null;
+    }
+
     boolean unAssigned() {
         return assignee == null;
     }
@@ -65,19 +125,17 @@ public class Shift {
     }
 
     public boolean hasOverlap(Shift otherShift) {
-        return overlap(new Period(otherShift.start, otherShift.getEnd())) != Duration.ZERO;
+        return overlapSeconds(otherShift.startEpochSecond, otherShift.endEpochSecond) > 0;
     }
 
     public Duration overlap(Period period) {
-        Duration duration;
-        if (period.end.isBefore(this.start) || this.getEnd().isBefore(period.start)) {
-            duration = Duration.ZERO;
-        } else {
-            LocalDateTime latestStart = period.start.isBefore(this.start) ? this.start : period.start;
-            LocalDateTime earliestEnd = period.end.isBefore(this.getEnd()) ? period.end : this.getEnd();
-            duration = Duration.between(latestStart, earliestEnd);
-        }
-        return duration;
+        return Duration.ofSeconds(overlapSeconds(period.getStartEpochSecond(), period.getEndEpochSecond()));
+    }
+
+    long overlapSeconds(long fromEpochSecond, long toEpochSecond) {
+        long latestStart = Math.max(startEpochSecond, fromEpochSecond);
+        long earliestEnd = Math.min(endEpochSecond, toEpochSecond);
+        return Math.max(0, earliestEnd - latestStart);
     }
 
     @Override
@@ -87,7 +145,7 @@ public class Shift {
                         id,
                         start.toString(),
                         duration.toString(),
-                        assignee != null ? assignee.toString(): "");
+                        assignee != null ? assignee.getId() : "");
     }
 
 }
@@ -0,0 +1,81 @@
+package db.workshift;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.Assert;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Moves the shifts that ended before the horizon out of the shops into ArchivedShift, so loading a shop
+ * and building its schedules only reads the recent shifts. The rules look back a week at most, the horizon
+ * can't be shorter. Each batch is copied, unlinked and deleted with bulk statements in a transaction of its own.
+ */
+@Component
+@Lazy(false)
+class ShiftArchiver {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ShiftArchiver.class);
+
+    private static final Duration MINIMUM_HORIZON = Duration.ofDays(7);
+
+    private final ShiftRepository shiftRepository;
+    private final ArchivedShiftRepository archivedShiftRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration horizon;
+    private final int batchSize;
+
+    ShiftArchiver(ShiftRepository shiftRepository,
+                  ArchivedShiftRepository archivedShiftRepository,
+                  TransactionTemplate transactionTemplate,
+                  @Value("${workshift.archive.horizon:P90D}") Duration horizon,
+                  @Value("${workshift.archive.batch-size:500}") int batchSize) {
+        Assert.isTrue(horizon.compareTo(MINIMUM_HORIZON) >= 0, "workshift.archive.horizon must be at least 7 days");
+        Assert.isTrue(batchSize > 0, "workshift.archive.batch-size must be positive");
+        this.shiftRepository = shiftRepository;
+        this.archivedShiftRepository = archivedShiftRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.horizon = horizon;
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(initialDelayString = "${workshift.archive.interval:PT1H}", fixedDelayString = "${workshift.archive.interval:PT1H}")
+    void archive() {
+        int archived = archiveEndingBefore(LocalDateTime.now().minus(horizon));
+        LOG.info("archived <{}> shifts older than <{}>", archived, horizon);
+    }
+
+    /**
+     * @return the number of shifts archived
+     */
+    int archiveEndingBefore(LocalDateTime cutoff) {
+        int archived = 0;
+        int moved;
+        do {
+            moved = transactionTemplate.execute(status -> archiveBatch(cutoff));
+            archived += moved;
+        } while (moved == batchSize);
+        return archived;
+    }
+
+    private int archiveBatch(LocalDateTime cutoff) {
+        List<UUID> ids = shiftRepository.findIdsEndingBefore(cutoff, PageRequest.ofSize(batchSize));
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        archivedShiftRepository.copyShifts(ids);
+        shiftRepository.deleteFromShops(ids);
+        shiftRepository.deleteByIds(ids);
+        return ids.size();
+    }
+
+}
@@ -0,0 +1,9 @@
+package db.workshift;
+
+import java.util.UUID;
+
+/**
+ * One entry of a bulk assignment, the user to put on the shift
+ */
+public record ShiftAssignment(UUID shiftId, UUID userId) {
+}
@@ -0,0 +1,37 @@
+package db.workshift;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * A change to one shift of a shop, as pushed to the subscribers of its ShiftFeed. The assignee of a released
+ * shift is null, it is available again.
+ */
+public record ShiftDelta(Type type, UUID shiftId, LocalDateTime start, Duration duration, UUID assigneeId) {
+
+    public enum Type {
+        ADDED("shift-added"),
+        ASSIGNED("shift-assigned"),
+        RELEASED("shift-released");
+
+        private final String eventName;
+
+        Type(String eventName) {
+            this.eventName = eventName;
+        }
+
+        String eventName() {
+            return eventName;
+        }
+    }
+
+    static ShiftDelta of(ShiftEvent event) {
+        return switch (event.getType()) {
+            case ADDED -> new ShiftDelta(Type.ADDED, event.getShiftId(), event.getStart(), event.getDuration(), null);
+            case ASSIGNED -> new ShiftDelta(Type.ASSIGNED, event.getShiftId(), event.getStart(), event.getDuration(), event.getUserId());
+            case UNASSIGNED -> new ShiftDelta(Type.RELEASED, event.getShiftId(), event.getStart(), event.getDuration(), null);
+        };
+    }
+
+}
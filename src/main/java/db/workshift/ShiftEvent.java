@@ -0,0 +1,133 @@
+package db.workshift;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import org.springframework.data.domain.Persistable;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * One entry of the append only journal of shift changes, written by ShiftJournal in the transaction making the
+ * change and never updated. Ids are made here, not by a sequence, and an event is always new,
+ * so appending is a batched insert and nothing else. The db numbers the events as they are inserted,
+ * the position is never read back on insert.
+ */
+@Entity
+@Table(indexes = @Index(name = "idx_shift_event_position", columnList = "journal_position", unique = true))
+public class ShiftEvent implements Persistable<UUID> {
+
+    enum Type {
+        ADDED,
+        ASSIGNED,
+        UNASSIGNED
+    }
+
+    @Id
+    private UUID id;
+
+    /**
+     * Increasing in insert order, not commit order, a transaction inserting early and committing late leaves
+     * a gap behind the positions of later commits until it commits, see ShopSummaryProjector
+     */
+    @Column(name = "journal_position", insertable = false, updatable = false,
+            columnDefinition = "bigint generated by default as identity")
+    private Long position;
+
+    @Column(name = "recorded_at")
+    private Instant recordedAt;
+
+    @Enumerated(EnumType.STRING)
+    private Type type;
+
+    @Column(name = "shop_id")
+    private UUID shopId;
+
+    @Column(name = "shift_id")
+    private UUID shiftId;
+
+    private LocalDateTime start;
+    private Duration duration;
+
+    /**
+     * the assignee of an ASSIGNED event, the user taken off the shift of an UNASSIGNED one
+     */
+    @Column(name = "user_id")
+    private UUID userId;
+
+    protected ShiftEvent() {
+    }
+
+    private ShiftEvent(Type type, UUID shopId, Shift shift, UUID userId, Instant recordedAt) {
+        this.id = UUID.randomUUID();
+        this.recordedAt = recordedAt;
+        this.type = type;
+        this.shopId = shopId;
+        this.shiftId = shift.getId();
+        this.start = shift.getStart();
+        this.duration = shift.getDuration();
+        this.userId = userId;
+    }
+
+    static ShiftEvent added(UUID shopId, Shift shift, Instant recordedAt) {
+        return new ShiftEvent(Type.ADDED, shopId, shift, null, recordedAt);
+    }
+
+    static ShiftEvent assigned(UUID shopId, Shift shift, Instant recordedAt) {
+        return new ShiftEvent(Type.ASSIGNED, shopId, shift, shift.getAssignee().getId(), recordedAt);
+    }
+
+    static ShiftEvent unassigned(UUID shopId, Shift shift, UUID userId, Instant recordedAt) {
+        return new ShiftEvent(Type.UNASSIGNED, shopId, shift, userId, recordedAt);
+    }
+
+    @Override
+    public UUID getId() {
+        return id;
+    }
+
+    @Override
+    public boolean isNew() {
+        return true;
+    }
+
+    Long getPosition() {
+        return position;
+    }
+
+    Instant getRecordedAt() {
+        return recordedAt;
+    }
+
+    Type getType() {
+        return type;
+    }
+
+    UUID getShopId() {
+        return shopId;
+    }
+
+    UUID getShiftId() {
+        return shiftId;
+    }
+
+    LocalDateTime getStart() {
+        return start;
+    }
+
+    Duration getDuration() {
+        return duration;
+    }
+
+    UUID getUserId() {
+        return userId;
+    }
+
+}
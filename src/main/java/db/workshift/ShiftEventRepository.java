@@ -0,0 +1,26 @@
+package db.workshift;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+public interface ShiftEventRepository extends CrudRepository<ShiftEvent, UUID> {
+
+    /**
+     * the committed events after the position in journal order, keyset paginated on the position index
+     */
+    @Query("select e from ShiftEvent e where e.position > :afterPosition order by e.position")
+    List<ShiftEvent> findEventsAfter(@Param("afterPosition") long afterPosition, Pageable pageable);
+
+    /**
+     * the events of the positions that have been committed by now
+     */
+    @Query("select e from ShiftEvent e where e.position in :positions order by e.position")
+    List<ShiftEvent> findEventsAt(@Param("positions") Collection<Long> positions);
+
+}
@@ -0,0 +1,111 @@
+package db.workshift;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Writes a shops shifts to a stream one by one as they are scrolled from the db, so the memory used stays
+ * the same however many shifts are exported
+ */
+@Component
+class ShiftExporter {
+
+    enum Format {
+        NDJSON("application/x-ndjson", "ndjson"),
+        CSV("text/csv", "csv");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        String getContentType() {
+            return contentType;
+        }
+
+        String getExtension() {
+            return extension;
+        }
+    }
+
+    private static final String CSV_HEADER = "id,start,duration,assigneeId\n";
+
+    private final ShiftRepository shiftRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate readOnlyTransactionTemplate;
+
+    ShiftExporter(ShiftRepository shiftRepository, ObjectMapper objectMapper, TransactionTemplate transactionTemplate) {
+        this.shiftRepository = shiftRepository;
+        this.objectMapper = objectMapper;
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+    }
+
+    /**
+     * @param from       inclusive, from the first shift when null
+     * @param to         exclusive, to the last shift when null
+     * @param assigneeId only the shifts of the user, all shifts when null
+     */
+    void export(UUID shopId, LocalDateTime from, LocalDateTime to, UUID assigneeId, Format format, OutputStream out) {
+        readOnlyTransactionTemplate.executeWithoutResult(status -> {
+            try (Stream<ShiftView> shifts = shiftRepository.streamShopShifts(shopId, from, to, assigneeId)) {
+                switch (format) {
+                    case NDJSON -> writeNdjson(shifts.iterator(), out);
+                    case CSV -> writeCsv(shifts.iterator(), out);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    private void writeNdjson(Iterator<ShiftView> shifts, OutputStream out) throws IOException {
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        while (shifts.hasNext()) {
+            generator.writeObject(shifts.next());
+            generator.writeRaw('\n');
+        }
+        generator.close();
+    }
+
+    /**
+     * ids, iso dates and durations, none of them needs quoting
+     */
+    private static void writeCsv(Iterator<ShiftView> shifts, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write(CSV_HEADER);
+        while (shifts.hasNext()) {
+            ShiftView shift = shifts.next();
+            writer.write(shift.id().toString());
+            writer.write(',');
+            writer.write(shift.start().toString());
+            writer.write(',');
+            writer.write(shift.duration().toString());
+            writer.write(',');
+            if (shift.assigneeId() != null) {
+                writer.write(shift.assigneeId().toString());
+            }
+            writer.write('\n');
+        }
+        writer.flush();
+    }
+
+}
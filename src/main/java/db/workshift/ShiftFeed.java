@@ -0,0 +1,272 @@
+package db.workshift;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pushes the shift changes of a shop to its subscribers as server-sent events, shift-added, shift-assigned and
+ * shift-released, once the transaction making them commits. An idle subscriber is an open response and an
+ * SseEmitter, no thread. Deltas and heartbeats wait in a FeedBuffer per subscriber and a few sender threads drain
+ * them, one subscriber at a time. A subscriber falling too far behind gets a resync event to reload the shifts
+ * instead of everything it missed. A write blocked on a client not reading for longer than the write timeout drops
+ * the subscriber, and the pool gets a thread in place of the one stuck until the connection times out, so stalled
+ * clients never hold up the others.
+ */
+@Component
+class ShiftFeed {
+
+    static final String RESYNC = "resync";
+
+    private static final long NOT_WRITING = Long.MIN_VALUE;
+    private static final long STALLED = Long.MAX_VALUE;
+
+    private static final Logger LOG = LoggerFactory.getLogger(ShiftFeed.class);
+
+    private final Map<UUID, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private final Counter overflows;
+    private final Counter stalls;
+    private final ThreadPoolExecutor senders;
+    private final Duration timeout;
+    private final Duration writeTimeout;
+    private final int bufferSize;
+
+    ShiftFeed(MeterRegistry registry,
+              @Value("${workshift.feed.senders:4}") int senders,
+              @Value("${workshift.feed.timeout:PT30M}") Duration timeout,
+              @Value("${workshift.feed.write-timeout:PT10S}") Duration writeTimeout,
+              @Value("${workshift.feed.buffer:256}") int bufferSize) {
+        this.senders = new ThreadPoolExecutor(senders, senders, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>());
+        this.timeout = timeout;
+        this.writeTimeout = writeTimeout;
+        this.bufferSize = bufferSize;
+        Gauge.builder("workshift.feed.subscribers", subscriberCount, AtomicInteger::get)
+                .description("Open shift feed subscriptions")
+                .register(registry);
+        overflows = Counter.builder("workshift.feed.overflows")
+                .description("Subscribers that fell so far behind they were told to resync")
+                .register(registry);
+        stalls = Counter.builder("workshift.feed.stalls")
+                .description("Subscribers dropped for not reading within the write timeout")
+                .register(registry);
+    }
+
+    /**
+     * a new subscription to the shops changes from now on, it ends when the client goes away or the timeout passes
+     */
+    SseEmitter subscribe(UUID shopId) {
+        return subscribe(shopId, new SseEmitter(timeout.toMillis()));
+    }
+
+    SseEmitter subscribe(UUID shopId, SseEmitter emitter) {
+        Subscriber subscriber = new Subscriber(shopId, emitter, new FeedBuffer(bufferSize));
+        emitter.onCompletion(() -> unsubscribe(subscriber));
+        emitter.onTimeout(() -> unsubscribe(subscriber));
+        emitter.onError(e -> unsubscribe(subscriber));
+        // on the map, racing the removal of the last subscriber of the shop
+        subscribers.compute(shopId, (id, shopSubscribers) -> {
+            Set<Subscriber> set = shopSubscribers != null ? shopSubscribers : ConcurrentHashMap.newKeySet();
+            set.add(subscriber);
+            return set;
+        });
+        subscriberCount.incrementAndGet();
+        return emitter;
+    }
+
+    /**
+     * publishes the events once the current transaction commits, nothing of a rolled back transaction is seen
+     */
+    void publishAfterCommit(UUID shopId, List<ShiftEvent> events) {
+        if (!subscribers.containsKey(shopId)) {
+            return;
+        }
+        List<ShiftDelta> deltas = events.stream().map(ShiftDelta::of).toList();
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            publish(shopId, deltas);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                publish(shopId, deltas);
+            }
+        });
+    }
+
+    void publish(UUID shopId, List<ShiftDelta> deltas) {
+        Set<Subscriber> shopSubscribers = subscribers.get(shopId);
+        if (shopSubscribers == null) {
+            return;
+        }
+        for (Subscriber subscriber : shopSubscribers) {
+            deltas.forEach(subscriber.buffer::offer);
+            schedule(subscriber);
+        }
+    }
+
+    /**
+     * A comment now and then, so proxies keep idle subscriptions open and clients gone away are noticed. Only
+     * queued here, the sender threads write it, nothing on the scheduling thread waits for a client.
+     */
+    @Scheduled(initialDelayString = "${workshift.feed.heartbeat:PT20S}", fixedDelayString = "${workshift.feed.heartbeat:PT20S}")
+    void heartbeat() {
+        subscribers.values().forEach(shopSubscribers -> shopSubscribers.forEach(subscriber -> {
+            subscriber.buffer.heartbeat();
+            schedule(subscriber);
+        }));
+    }
+
+    /**
+     * drops the subscribers whose write has been blocked for longer than the write timeout
+     */
+    @Scheduled(fixedDelay = 1000)
+    void dropStalled() {
+        long now = System.nanoTime();
+        subscribers.values().forEach(shopSubscribers -> shopSubscribers.forEach(subscriber -> {
+            long writingSince = subscriber.writingSince.get();
+            if (writingSince != NOT_WRITING && now - writingSince > writeTimeout.toNanos()
+                    && subscriber.writingSince.compareAndSet(writingSince, STALLED)) {
+                LOG.info("shift feed subscriber of shop {} stopped reading, dropping it", subscriber.shopId);
+                stalls.increment();
+                unsubscribe(subscriber);
+                // the emitter is completed by the stuck sender once its write returns, completing it here would wait for it
+                resizeSenders(1);
+            }
+        }));
+    }
+
+    int subscriberCount() {
+        return subscriberCount.get();
+    }
+
+    private void schedule(Subscriber subscriber) {
+        if (subscriber.scheduled.compareAndSet(false, true)) {
+            try {
+                senders.execute(() -> send(subscriber));
+            } catch (RejectedExecutionException e) {
+                subscriber.scheduled.set(false);
+            }
+        }
+    }
+
+    private void send(Subscriber subscriber) {
+        FeedBuffer.Drained drained = subscriber.buffer.drain();
+        try {
+            if (drained.heartbeat()) {
+                write(subscriber, SseEmitter.event().comment(""));
+            }
+            if (drained.resync()) {
+                overflows.increment();
+                write(subscriber, SseEmitter.event().name(RESYNC).data(""));
+            }
+            for (ShiftDelta delta : drained.deltas()) {
+                write(subscriber, SseEmitter.event().name(delta.type().eventName()).id(delta.shiftId().toString()).data(delta));
+            }
+        } catch (IOException | IllegalStateException e) {
+            LOG.debug("shift feed subscriber of shop {} went away <{}>", subscriber.shopId, e.getMessage());
+            unsubscribe(subscriber);
+            subscriber.emitter.complete();
+            return;
+        } finally {
+            subscriber.scheduled.set(false);
+        }
+        if (subscriber.isStalled()) {
+            subscriber.emitter.complete();
+        } else if (!subscriber.buffer.isEmpty()) {
+            // deltas offered while sending found it still scheduled
+            schedule(subscriber);
+        }
+    }
+
+    private void write(Subscriber subscriber, SseEmitter.SseEventBuilder event) throws IOException {
+        long start = System.nanoTime();
+        if (!subscriber.writingSince.compareAndSet(NOT_WRITING, start)) {
+            // stalled, dropped already
+            return;
+        }
+        try {
+            subscriber.emitter.send(event);
+        } finally {
+            if (!subscriber.writingSince.compareAndSet(start, NOT_WRITING)) {
+                // dropStalled gave the pool a thread in place of this one
+                resizeSenders(-1);
+            }
+        }
+    }
+
+    private synchronized void resizeSenders(int change) {
+        if (change > 0) {
+            senders.setMaximumPoolSize(senders.getMaximumPoolSize() + change);
+            senders.setCorePoolSize(senders.getCorePoolSize() + change);
+        } else {
+            senders.setCorePoolSize(senders.getCorePoolSize() + change);
+            senders.setMaximumPoolSize(senders.getMaximumPoolSize() + change);
+        }
+    }
+
+    private void unsubscribe(Subscriber subscriber) {
+        AtomicBoolean removed = new AtomicBoolean();
+        subscribers.computeIfPresent(subscriber.shopId, (id, shopSubscribers) -> {
+            removed.set(shopSubscribers.remove(subscriber));
+            return shopSubscribers.isEmpty() ? null : shopSubscribers;
+        });
+        if (removed.get()) {
+            subscriberCount.decrementAndGet();
+        }
+    }
+
+    @PreDestroy
+    void close() {
+        senders.shutdownNow();
+        subscribers.values().forEach(shopSubscribers -> shopSubscribers.forEach(subscriber -> subscriber.emitter.complete()));
+    }
+
+    private static final class Subscriber {
+
+        private final UUID shopId;
+        private final SseEmitter emitter;
+        private final FeedBuffer buffer;
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        /**
+         * nano time the write in progress started, NOT_WRITING or STALLED once dropped for a blocked write
+         */
+        private final AtomicLong writingSince = new AtomicLong(NOT_WRITING);
+
+        private Subscriber(UUID shopId, SseEmitter emitter, FeedBuffer buffer) {
+            this.shopId = shopId;
+            this.emitter = emitter;
+            this.buffer = buffer;
+        }
+
+        private boolean isStalled() {
+            return writingSince.get() == STALLED;
+        }
+    }
+
+}
@@ -0,0 +1,66 @@
+package db.workshift;
+
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Appends the shift changes of the current transaction to the journal, see ShiftEvent.
+ * The read models built from it, like ShopSummaryProjector, follow asynchronously,
+ * the subscribers of the shops ShiftFeed get them as soon as the transaction commits.
+ * Only the summaries are projected, the available shifts, the users schedules and the conflicts are read from
+ * the shifts table, the rules must not see them lagging behind.
+ */
+@Component
+class ShiftJournal {
+
+    private final ShiftEventRepository shiftEventRepository;
+    private final ShiftFeed shiftFeed;
+    private final Clock clock = Clock.systemUTC();
+
+    ShiftJournal(ShiftEventRepository shiftEventRepository, ShiftFeed shiftFeed) {
+        this.shiftEventRepository = shiftEventRepository;
+        this.shiftFeed = shiftFeed;
+    }
+
+    void added(UUID shopId, Collection<Shift> shifts) {
+        Instant now = clock.instant();
+        List<ShiftEvent> events = new ArrayList<>(shifts.size());
+        shifts.forEach(shift -> events.add(ShiftEvent.added(shopId, shift, now)));
+        append(shopId, events);
+    }
+
+    void unassigned(UUID shopId, Shift shift, UUID userId) {
+        append(shopId, List.of(ShiftEvent.unassigned(shopId, shift, userId, clock.instant())));
+    }
+
+    /**
+     * the two shifts off their previous assignees and on to the new ones, as unassigned and assigned events
+     */
+    void swapped(UUID shopId, Shift first, UUID firstUserId, Shift second, UUID secondUserId) {
+        Instant now = clock.instant();
+        append(shopId, List.of(
+                ShiftEvent.unassigned(shopId, first, firstUserId, now),
+                ShiftEvent.unassigned(shopId, second, secondUserId, now),
+                ShiftEvent.assigned(shopId, first, now),
+                ShiftEvent.assigned(shopId, second, now)));
+    }
+
+    void assigned(UUID shopId, Collection<Shift> shifts) {
+        Instant now = clock.instant();
+        List<ShiftEvent> events = new ArrayList<>(shifts.size());
+        shifts.forEach(shift -> events.add(ShiftEvent.assigned(shopId, shift, now)));
+        append(shopId, events);
+    }
+
+    private void append(UUID shopId, List<ShiftEvent> events) {
+        shiftEventRepository.saveAll(events);
+        shiftFeed.publishAfterCommit(shopId, events);
+    }
+
+}
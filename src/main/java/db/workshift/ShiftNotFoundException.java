@@ -0,0 +1,4 @@
+package db.workshift;
+
+public class ShiftNotFoundException extends Exception {
+}
@@ -0,0 +1,41 @@
+package db.workshift;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * One page of shifts ordered by start, next is the cursor for the following page, null on the last page
+ */
+public record ShiftPage(List<ShiftView> shifts, String next) {
+
+    private static final String SEPARATOR = "_";
+
+    static ShiftPage of(List<Shift> shifts, int size) {
+        return ofViews(shifts.stream().map(ShiftView::of).toList(), size);
+    }
+
+    static ShiftPage ofViews(List<ShiftView> views, int size) {
+        if (views.size() < size) {
+            return new ShiftPage(views, null);
+        }
+        ShiftView last = views.get(views.size() - 1);
+        return new ShiftPage(views, last.start() + SEPARATOR + last.id());
+    }
+
+    /**
+     * the cursor is the start and id of the last shift on the previous page
+     */
+    record Cursor(LocalDateTime start, UUID id) {
+
+        static Cursor parse(String cursor) {
+            String[] parts = cursor.split(SEPARATOR);
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid cursor <%s>".formatted(cursor));
+            }
+            return new Cursor(LocalDateTime.parse(parts[0]), UUID.fromString(parts[1]));
+        }
+
+    }
+
+}
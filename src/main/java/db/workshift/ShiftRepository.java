@@ -0,0 +1,134 @@
+package db.workshift;
+
+import db.workshift.users.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+public interface ShiftRepository extends CrudRepository<Shift, UUID> {
+
+    /**
+     * Any shift assigned to the user overlapping the period [start, end), other than the excluded one when given.
+     * No shift is longer than Shift.MAXIMUM_DURATION, so only the shifts starting less than that before the period
+     * can overlap it, which bounds the range scanned on the (assignee, start) index on both ends.
+     */
+    @Query("""
+            select count(s) > 0 from Shift s
+            where s.assignee = :assignee
+              and s.start > :startingAfter and s.start < :end and s.endTime > :start
+              and (:excluded is null or s.id <> :excluded)""")
+    boolean existsOverlapping(@Param("assignee") User assignee,
+                              @Param("start") LocalDateTime start,
+                              @Param("end") LocalDateTime end,
+                              @Param("startingAfter") LocalDateTime startingAfter,
+                              @Param("excluded") UUID excluded);
+
+    /**
+     * the shifts assigned to any of the users overlapping the period [start, end), bounded like existsOverlapping
+     */
+    @Query("""
+            select s from Shift s
+            where s.assignee in :assignees
+              and s.start > :startingAfter and s.start < :end and s.endTime > :start""")
+    List<Shift> findOverlapping(@Param("assignees") Collection<User> assignees,
+                                @Param("start") LocalDateTime start,
+                                @Param("end") LocalDateTime end,
+                                @Param("startingAfter") LocalDateTime startingAfter);
+
+    /**
+     * the assigned shift with the id if it is in the shop, without loading the shop
+     */
+    @Query("select s from Shop shop join shop.shifts s where shop.id = :shopId and s.id = :shiftId and s.assignee is not null")
+    Optional<Shift> findAssignedShopShift(@Param("shopId") UUID shopId, @Param("shiftId") UUID shiftId);
+
+    /**
+     * adds the shifts, flushed first, to the shop in one statement, without loading the shop
+     */
+    @Modifying(flushAutomatically = true)
+    @Query(value = "insert into shop_shifts (shop_id, shifts_id) select :shopId, s.id from shift s where s.id in :ids", nativeQuery = true)
+    int addToShop(@Param("shopId") UUID shopId, @Param("ids") Collection<UUID> ids);
+
+    @Query("select a.id from Shift s join s.assignee a where s.id in :ids")
+    List<UUID> findAssigneeIds(@Param("ids") Collection<UUID> ids);
+
+    /**
+     * first page of the shifts in a shop starting within [from, to), filtered on being assigned or available
+     */
+    @Query("""
+            select s from Shop shop join shop.shifts s
+            where shop.id = :shopId
+              and s.start >= :from and s.start < :to
+              and ((:assigned = true and s.assignee is not null) or (:available = true and s.assignee is null))
+            order by s.start, s.id""")
+    List<Shift> findShopShifts(@Param("shopId") UUID shopId,
+                               @Param("from") LocalDateTime from,
+                               @Param("to") LocalDateTime to,
+                               @Param("assigned") boolean assigned,
+                               @Param("available") boolean available,
+                               Pageable pageable);
+
+    /**
+     * following pages, keyset paginated on (start, id) of the last shift of the previous page
+     */
+    @Query("""
+            select s from Shop shop join shop.shifts s
+            where shop.id = :shopId
+              and s.start >= :from and s.start < :to
+              and ((:assigned = true and s.assignee is not null) or (:available = true and s.assignee is null))
+              and (s.start > :afterStart or (s.start = :afterStart and s.id > :afterId))
+            order by s.start, s.id""")
+    List<Shift> findShopShiftsAfter(@Param("shopId") UUID shopId,
+                                    @Param("from") LocalDateTime from,
+                                    @Param("to") LocalDateTime to,
+                                    @Param("assigned") boolean assigned,
+                                    @Param("available") boolean available,
+                                    @Param("afterStart") LocalDateTime afterStart,
+                                    @Param("afterId") UUID afterId,
+                                    Pageable pageable);
+
+    /**
+     * a shops shifts as views in start order, scrolled from the db in fetch sized chunks.
+     * Views are not managed, so the persistence context stays empty however many shifts are read.
+     * The filters are off when null. Needs an open transaction and must be closed.
+     */
+    @Query("""
+            select new db.workshift.ShiftView(s.id, s.start, s.duration, a.id)
+            from Shop shop join shop.shifts s left join s.assignee a
+            where shop.id = :shopId
+              and (:from is null or s.start >= :from)
+              and (:to is null or s.start < :to)
+              and (:assigneeId is null or a.id = :assigneeId)
+            order by s.start, s.id""")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    Stream<ShiftView> streamShopShifts(@Param("shopId") UUID shopId,
+                                       @Param("from") LocalDateTime from,
+                                       @Param("to") LocalDateTime to,
+                                       @Param("assigneeId") UUID assigneeId);
+
+    /**
+     * the oldest shifts of any shop ending at or before the cutoff, by the end_time index
+     */
+    @Query("select s.id from Shop shop join shop.shifts s where s.endTime <= :cutoff order by s.endTime")
+    List<UUID> findIdsEndingBefore(@Param("cutoff") LocalDateTime cutoff, Pageable pageable);
+
+    @Modifying
+    @Query(value = "delete from shop_shifts where shifts_id in :ids", nativeQuery = true)
+    int deleteFromShops(@Param("ids") Collection<UUID> ids);
+
+    @Modifying
+    @Query("delete from Shift s where s.id in :ids")
+    int deleteByIds(@Param("ids") Collection<UUID> ids);
+
+}
@@ -0,0 +1,30 @@
+package db.workshift;
+
+import java.util.function.Predicate;
+
+/**
+ * One rule a user has to keep to take a shift, limits are fixed when the rule is created, see ShopRules.
+ * An abstract class rather than an interface, the pipeline calls the rules through one call site
+ * and a virtual call there is cheaper than an interface call.
+ */
+abstract class ShiftRule {
+
+    /**
+     * @param schedule           the users shifts in the shop within reach of the rules, shared by all the rules of a check
+     * @param conflictsElsewhere whether the shift overlaps the users shifts in any shop, from a snapshot or the db
+     */
+    abstract boolean isBrokenBy(Shift shift, UserSchedule.Around schedule, Predicate<Shift> conflictsElsewhere);
+
+    abstract RuleViolation violation();
+
+    /**
+     * how far before the start or after the end of a shift the rule looks at the other shifts
+     */
+    abstract long reachSeconds();
+
+    /**
+     * relative cost of evaluating the rule, the pipeline runs the cheap ones first
+     */
+    abstract int cost();
+
+}
@@ -0,0 +1,9 @@
+package db.workshift;
+
+import java.util.UUID;
+
+/**
+ * The two assigned shifts whose assignees swap them
+ */
+public record ShiftSwap(UUID firstShiftId, UUID secondShiftId) {
+}
@@ -0,0 +1,19 @@
+package db.workshift;
+
+import db.workshift.users.User;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * What the api returns for a shift, the assignee only by id
+ */
+public record ShiftView(UUID id, LocalDateTime start, Duration duration, UUID assigneeId) {
+
+    static ShiftView of(Shift shift) {
+        User assignee = shift.getAssignee();
+        return new ShiftView(shift.getId(), shift.getStart(), shift.getDuration(), assignee != null ? assignee.getId() : null);
+    }
+
+}
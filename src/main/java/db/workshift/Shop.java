@@ -2,34 +2,95 @@ package db.workshift;
 
 import db.workshift.users.User;
 import jakarta.persistence.*;
+import org.hibernate.Hibernate;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.time.Duration;
-import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
+/**
+ * The shop itself and its employees are read far more than changed and live in the second level cache,
+ * the shifts change all the time and are always read from the db
+ */
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class Shop {
 
-    private static final int TIME_WINDOW_24_HOURS = 24;
-    private static final int MAXIMUM_ALLOWED_USER_HOURS_IN_TIME_WINDOW = 8;
+    private static final Comparator<Shift> BY_START =
+            Comparator.comparingLong(Shift::getStartEpochSecond).thenComparing(Shift::getId);
 
     @OneToMany
+    @JoinTable(name = "shop_employees",
+            joinColumns = @JoinColumn(name = "shop_id"),
+            inverseJoinColumns = @JoinColumn(name = "employees_id"),
+            indexes = @Index(name = "idx_shop_employees_shop", columnList = "shop_id"))
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     private final Set<User> employees = new HashSet<>();
 
     @OneToMany(cascade = CascadeType.ALL)
+    @JoinTable(name = "shop_shifts",
+            joinColumns = @JoinColumn(name = "shop_id"),
+            inverseJoinColumns = @JoinColumn(name = "shifts_id"),
+            indexes = @Index(name = "idx_shop_shifts_shop", columnList = "shop_id"))
     private final Set<Shift> shifts = new HashSet<>();
 
+    /**
+     * assigned on creation, so a partitioned deployment can pick an id of the partition creating the shop
+     */
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
     private UUID id;
 
+    @Version
+    private Long version;
+
+    @Embedded
+    private ShopRules rules = ShopRules.DEFAULT;
+
+    /**
+     * compiled from rules on first use
+     */
+    @Transient
+    private RulePipeline pipeline;
+
+    /**
+     * built from shifts on first use, then kept up to date by assign
+     */
+    @Transient
+    private Map<User, UserSchedule> schedules;
+
+    /**
+     * built from shifts on first use, then kept up to date by addShift
+     */
+    @Transient
+    private Map<UUID, Shift> shiftsById;
+
+    /**
+     * the unassigned shifts by start, built from shifts on first use, then kept up to date by addShift and assign
+     */
+    @Transient
+    private NavigableSet<Shift> availableShifts;
+
     protected Shop() {
     }
 
+    private Shop(UUID id) {
+        this.id = id;
+    }
+
     static Shop create() {
-        return new Shop();
+        return create(UUID.randomUUID());
+    }
+
+    /**
+     * @see ShopPartitions#newShopId()
+     */
+    static Shop create(UUID id) {
+        return new Shop(id);
     }
 
     public UUID getId() {
@@ -44,86 +105,228 @@ public class Shop {
         return employees.contains(user);
     }
 
-    void addShift(LocalDateTime start, Duration duration) {
-        shifts.add(Shift.create(start, duration));
+    Shift addShift(LocalDateTime start, Duration duration) {
+        Shift shift = Shift.create(start, duration);
+        shifts.add(shift);
+        if (shiftsById != null) {
+            shiftsById.put(shift.getId(), shift);
+        }
+        if (availableShifts != null) {
+            availableShifts.add(shift);
+        }
+        return shift;
     }
 
+    public ShopRules getRules() {
+        return rules;
+    }
+
+    void setRules(ShopRules rules) {
+        this.rules = rules;
+        this.pipeline = null;
+    }
+
+    RulePipeline getRulePipeline() {
+        if (pipeline == null) {
+            pipeline = rules.compile();
+        }
+        return pipeline;
+    }
+
+    /**
+     * times the rules of this shop instance from now on, until the rules are changed
+     */
+    void instrumentRules(RuleMetrics metrics) {
+        pipeline = getRulePipeline().instrumented(metrics);
+    }
+
+    int getEmployeeCount() {
+        return employees.size();
+    }
+
+    Set<User> getEmployees() {
+        return Collections.unmodifiableSet(employees);
+    }
+
+    /**
+     * in start order, without sorting, the check on each shift skips those assigned around the shop
+     */
     List<Shift> getAvailableShifts() {
-        return shifts
+        return availableShifts()
                 .stream()
                 .filter(Shift::unAssigned)
-                .sorted(Comparator.comparing(Shift::getStart))
                 .collect(Collectors.toList());
     }
 
+    /**
+     * the available shift with the id, by a map lookup
+     */
     public Optional<Shift> findShift(UUID uuid) {
-        return getAvailableShifts()
-                .stream()
-                .filter(shift -> shift.getId().equals(uuid))
-                .findFirst();
+        Shift shift = shiftsById().get(uuid);
+        return shift != null && shift.unAssigned() ? Optional.of(shift) : Optional.empty();
     }
 
-    List<Shift> getAssignedShifts(User user) {
-        return shifts
-                .stream()
-                .filter(shift -> shift.isAssignedTo(user))
-                .sorted(Comparator.comparing(Shift::getStart))
-                .collect(Collectors.toList());
+    /**
+     * the assigned shift with the id, by a map lookup
+     */
+    Optional<Shift> findAssignedShift(UUID uuid) {
+        Shift shift = shiftsById().get(uuid);
+        return shift != null && !shift.unAssigned() ? Optional.of(shift) : Optional.empty();
     }
 
-    void assignUserToShift(User user, Shift shift) throws HoursExceededException, DaysInRowExceededException {
-        validate24HourWindowRule(user, shift);
-        validate5DaysInRowRule(user, shift);
+    private Map<UUID, Shift> shiftsById() {
+        if (shiftsById == null) {
+            shiftsById = new HashMap<>(shifts.size() * 2);
+            shifts.forEach(shift -> shiftsById.put(shift.getId(), shift));
+        }
+        return shiftsById;
+    }
 
-        shift.assign(user);
+    private NavigableSet<Shift> availableShifts() {
+        if (availableShifts == null) {
+            availableShifts = new TreeSet<>(BY_START);
+            shifts.stream().filter(Shift::unAssigned).forEach(availableShifts::add);
+        }
+        return availableShifts;
     }
 
-    private void validate5DaysInRowRule(User user, Shift shift) throws DaysInRowExceededException {
-        List<Shift> assignedShifts = getAssignedShifts(user);
+    List<Shift> getAssignedShifts(User user) {
+        return schedule(user).getShifts();
+    }
 
-        int daysAfter = 0;
-        LocalDate dayAfter = shift.getStart().toLocalDate().plusDays(1);
-        while (hasShiftOnDay(assignedShifts, dayAfter)) {
-            daysAfter++;
-            dayAfter = dayAfter.plusDays(1);
+    private UserSchedule schedule(User user) {
+        if (schedules == null) {
+            schedules = new HashMap<>();
+            shifts.stream()
+                    .filter(shift -> !shift.unAssigned())
+                    .forEach(shift -> schedules.computeIfAbsent(shift.getAssignee(), assignee -> new UserSchedule()).add(shift));
         }
+        return schedules.computeIfAbsent(user, assignee -> new UserSchedule());
+    }
 
-        int daysBefore = 0;
-        LocalDate dayBefore = shift.getStart().toLocalDate().minusDays(1);
-        while (hasShiftOnDay(assignedShifts, dayBefore)) {
-            daysBefore++;
-            dayBefore = dayBefore.minusDays(1);
+    /**
+     * the users shifts in this shop as a copy, to try out assignments on without touching the shop
+     */
+    UserSchedule copyOfSchedule(User user) {
+        return schedule(user).copy();
+    }
+
+    /**
+     * the exception throwing way of assignIfAllowed
+     */
+    void assignUserToShift(User user, Shift shift) throws RuleViolationException {
+        validateRules(user, shift);
+        assign(user, shift);
+    }
+
+    Optional<RuleViolation> assignIfAllowed(User user, Shift shift) {
+        return assignIfAllowed(user, shift, NoConflictingShiftRule.NOT_CHECKED);
+    }
+
+    /**
+     * assigns the shift unless the user would break one of the shops rules, the rule broken is returned instead
+     */
+    Optional<RuleViolation> assignIfAllowed(User user, Shift shift, Predicate<Shift> conflictsElsewhere) {
+        Optional<RuleViolation> violation = checkRules(user, shift, conflictsElsewhere);
+        if (violation.isEmpty()) {
+            assign(user, shift);
         }
+        return violation;
+    }
 
-        if (daysBefore + daysAfter + 1 > 5) {
-            throw new DaysInRowExceededException();
+    Optional<RuleViolation> checkRules(User user, Shift shift) {
+        return checkRules(user, shift, NoConflictingShiftRule.NOT_CHECKED);
+    }
+
+    /**
+     * the first of the shops rules the user would break by taking the shift, the shop is not changed
+     */
+    Optional<RuleViolation> checkRules(User user, Shift shift, Predicate<Shift> conflictsElsewhere) {
+        return getRulePipeline().evaluate(shift, schedule(user), conflictsElsewhere);
+    }
+
+    /**
+     * the exception throwing way of checkRules
+     */
+    void validateRules(User user, Shift shift) throws RuleViolationException {
+        Optional<RuleViolation> violation = checkRules(user, shift);
+        if (violation.isPresent()) {
+            throw violation.get().toException();
         }
+    }
 
+    /**
+     * takes the shift off its assignee, one shift less never breaks a rule so nothing is validated
+     *
+     * @return the user the shift was assigned to
+     */
+    User unassign(Shift shift) {
+        User user = shift.getAssignee();
+        shift.unassign();
+        schedule(user).remove(shift);
+        if (availableShifts != null) {
+            availableShifts.add(shift);
+        }
+        return user;
     }
 
-    private boolean hasShiftOnDay(List<Shift> assignedShifts, LocalDate day) {
-        return assignedShifts.stream().anyMatch(shift -> shift.getStart().toLocalDate().equals(day));
+    Optional<RuleViolation> swapIfAllowed(Shift first, Shift second) {
+        return swapIfAllowed(first, second, NoConflictingShiftRule.NOT_CHECKED, NoConflictingShiftRule.NOT_CHECKED);
     }
 
-    private void validate24HourWindowRule(User user, Shift shift) throws HoursExceededException {
-        Period window24Hours = new Period(
-                shift.getStart().minusHours(TIME_WINDOW_24_HOURS - shift.getDuration().toHours()),
-                shift.getStart().plusHours(TIME_WINDOW_24_HOURS));
+    /**
+     * Gives each of the two assignees the others shift, unless one of them would break a rule, the rule broken
+     * is returned instead and nothing changes. Each user is checked against their own schedule without the shift
+     * they give away, the rules only look at the shifts around the one taken.
+     *
+     * @param firstConflictsElsewhere  whether the second shift overlaps the first shifts assignees shifts in other shops
+     * @param secondConflictsElsewhere whether the first shift overlaps the second shifts assignees shifts in other shops
+     */
+    Optional<RuleViolation> swapIfAllowed(Shift first, Shift second,
+                                          Predicate<Shift> firstConflictsElsewhere,
+                                          Predicate<Shift> secondConflictsElsewhere) {
+        User firstUser = first.getAssignee();
+        User secondUser = second.getAssignee();
+        UserSchedule firstSchedule = schedule(firstUser);
+        UserSchedule secondSchedule = schedule(secondUser);
 
-        Duration totalHoursIn24HourWindow = getAssignedShifts(user)
-                .stream()
-                .reduce(Duration.ofHours(0),
-                        (subtotal, assignedShift) -> subtotal.plus(assignedShift.overlap(window24Hours)),
-                        Duration::plus);
+        firstSchedule.remove(first);
+        secondSchedule.remove(second);
+        Optional<RuleViolation> violation = getRulePipeline().evaluate(second, firstSchedule, firstConflictsElsewhere);
+        if (violation.isEmpty()) {
+            violation = getRulePipeline().evaluate(first, secondSchedule, secondConflictsElsewhere);
+        }
 
-        if (totalHoursIn24HourWindow.plus(shift.getDuration()).toHours() > MAXIMUM_ALLOWED_USER_HOURS_IN_TIME_WINDOW) {
-            throw new HoursExceededException();
+        if (violation.isPresent()) {
+            firstSchedule.add(first);
+            secondSchedule.add(second);
+            return violation;
         }
+        first.assign(secondUser);
+        second.assign(firstUser);
+        firstSchedule.add(second);
+        secondSchedule.add(first);
+        return Optional.empty();
     }
 
+    private void assign(User user, Shift shift) {
+        shift.assign(user);
+        schedule(user).add(shift);
+        if (availableShifts != null) {
+            availableShifts.remove(shift);
+        }
+    }
+
+    /**
+     * ids and counts only, collections not loaded yet are not loaded for it
+     */
     @Override
     public String toString() {
-        return "Shop[id=%s, employees='%s', shifts='%s']".formatted(id, employees.toString(), shifts.toString());
+        return "Shop[id=%s, employees=%s, shifts=%s]".formatted(id, sizeIfLoaded(employees), sizeIfLoaded(shifts));
+    }
+
+    private static String sizeIfLoaded(Collection<?> collection) {
+        return Hibernate.isInitialized(collection) ? String.valueOf(collection.size()) : "?";
     }
 
 }
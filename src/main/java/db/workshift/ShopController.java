@@ -4,16 +4,34 @@ import db.workshift.users.User;
 import db.workshift.users.UserRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
@@ -24,54 +42,108 @@ public class ShopController {
 
     private static final Logger LOG = LoggerFactory.getLogger(ShopController.class);
 
+    private static final int DEFAULT_WINDOW_DAYS = 14;
+    private static final int MAXIMUM_PAGE_SIZE = 500;
+    private static final long MAXIMUM_BUDGET_MILLIS = 30_000;
+
     /**
      * lazy, no service layer, directly in repo
      */
     private final ShopRepository shopRepository;
+    private final ShiftRepository shiftRepository;
+    private final ArchivedShiftRepository archivedShiftRepository;
     private final UserRepository userRepository;
     private final WorkshiftBrain workshiftBrain;
+    private final ShiftExporter shiftExporter;
+    private final ShopSummaryRepository shopSummaryRepository;
+    private final ShopSummaryProjector shopSummaryProjector;
+    private final ShopPartitions shopPartitions;
+    private final ShiftFeed shiftFeed;
 
-    ShopController(ShopRepository shopRepository, UserRepository userRepository, WorkshiftBrain workshiftBrain) {
+    ShopController(ShopRepository shopRepository,
+                   ShiftRepository shiftRepository,
+                   ArchivedShiftRepository archivedShiftRepository,
+                   UserRepository userRepository,
+                   WorkshiftBrain workshiftBrain,
+                   ShiftExporter shiftExporter,
+                   ShopSummaryRepository shopSummaryRepository,
+                   ShopSummaryProjector shopSummaryProjector,
+                   ShopPartitions shopPartitions,
+                   ShiftFeed shiftFeed) {
         this.shopRepository = shopRepository;
+        this.shiftRepository = shiftRepository;
+        this.archivedShiftRepository = archivedShiftRepository;
         this.userRepository = userRepository;
         this.workshiftBrain = workshiftBrain;
+        this.shiftExporter = shiftExporter;
+        this.shopSummaryRepository = shopSummaryRepository;
+        this.shopSummaryProjector = shopSummaryProjector;
+        this.shopPartitions = shopPartitions;
+        this.shiftFeed = shiftFeed;
     }
 
+    /**
+     * the shop is owned by the node creating it, its id is picked from this nodes partition
+     */
     @PostMapping
     @ResponseStatus(code = HttpStatus.CREATED)
     public Shop createShop(@RequestBody Map<String, String> input) {
-        LOG.info("create <%s>".formatted(input));
+        LOG.info("create <{}>", input);
 
-        Shop shop = shopRepository.save(Shop.create());
+        Shop shop = shopRepository.save(Shop.create(shopPartitions.newShopId()));
 
-        LOG.info("shop created <%s>".formatted(shop));
+        LOG.info("shop created <{}>", shop.getId());
         return shop;
     }
 
     @PostMapping(value = "/{id}/shift")
     @ResponseStatus(code = HttpStatus.CREATED)
-    public Shop addShift(@PathVariable String id,
-                         @RequestBody Shift input) {
-        LOG.info("addShift <%s>".formatted(input));
+    public ShiftView addShift(@PathVariable String id,
+                              @RequestBody Shift input) {
+        if (LOG.isInfoEnabled()) {
+            LOG.info("addShift, shop <{}>, start <{}>, duration <{}>", id, input.getStart(), input.getDuration());
+        }
 
-        /* :) */
-        Optional<Shop> shoptional = shopRepository.findById(UUID.fromString(id));
-        Shop shop = shoptional.orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+        UUID shopId = UUID.fromString(id);
+        if (!shopRepository.existsById(shopId)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND);
+        }
 
-        shop.addShift(input.getStart(), input.getDuration());
-        Shop persistedShop = shopRepository.save(shop);
+        BatchItem item = workshiftBrain.addShifts(shopId, List.of(input)).get(0);
+        if (!item.isAccepted()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, rejectionReason(item), item.rejection());
+        }
 
-        LOG.info("shift added <%s>".formatted(persistedShop));
-        return persistedShop;
+        LOG.info("shift <{}> added to shop <{}>", item.shift().getId(), id);
+        return ShiftView.of(item.shift());
+    }
+
+    @PostMapping(value = "/{id}/shifts")
+    @ResponseStatus(code = HttpStatus.CREATED)
+    public List<BatchItemView> addShifts(@PathVariable String id,
+                                         @RequestBody List<Shift> inputs) {
+        LOG.info("addShifts, shop <{}>, shifts <{}>", id, inputs.size());
+
+        UUID shopId = UUID.fromString(id);
+        if (!shopRepository.existsById(shopId)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Shop not found");
+        }
+
+        List<BatchItemView> items = toViews(workshiftBrain.addShifts(shopId, inputs));
+
+        if (LOG.isInfoEnabled()) {
+            LOG.info("shifts added to shop <{}>, <{}> of <{}>", id, countAccepted(items), items.size());
+        }
+        return items;
     }
 
     @PostMapping(value = "/{id}/user/{userId}")
     @ResponseStatus(code = HttpStatus.CREATED)
-    public Shop addUser(@PathVariable String id,
-                        @PathVariable String userId) {
-        LOG.info("addUser, shop <%s>, user <%s>".formatted(id, userId));
+    public ShopView addUser(@PathVariable String id,
+                            @PathVariable String userId) {
+        LOG.info("addUser, shop <{}>, user <{}>", id, userId);
 
-        Optional<Shop> shoptional = shopRepository.findById(UUID.fromString(id));
+        Optional<Shop> shoptional = shopRepository.findWithEmployeesById(UUID.fromString(id));
         Shop shop = shoptional.orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Shop not found"));
 
         Optional<User> userOptional = userRepository.findById(UUID.fromString(userId));
@@ -80,39 +152,350 @@ public class ShopController {
         shop.addUser(user);
         Shop persistedShop = shopRepository.save(shop);
 
-        LOG.info("user added <%s>".formatted(persistedShop));
-        return persistedShop;
+        if (LOG.isInfoEnabled()) {
+            LOG.info("user <{}> added to shop <{}>, employees <{}>", userId, id, persistedShop.getEmployeeCount());
+        }
+        return ShopView.of(persistedShop);
+    }
+
+    @PutMapping(value = "/{id}/rules")
+    @ResponseStatus(code = HttpStatus.OK)
+    public ShopRules setRules(@PathVariable String id,
+                              @RequestBody ShopRules rules) {
+        LOG.info("setRules, shop <{}>, rules <{}>", id, rules);
+
+        Shop shop = shopRepository.findById(UUID.fromString(id))
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Shop not found"));
+        shop.setRules(rules);
+
+        return shopRepository.save(shop).getRules();
     }
 
     @PutMapping(value = "/{id}/shift/{shiftId}/assign/{userId}")
     @ResponseStatus(code = HttpStatus.OK)
-    public Shop assignUserToShift(@PathVariable String id,
-                                  @PathVariable String shiftId,
-                                  @PathVariable String userId) {
-        LOG.info("assignUserToShift, shop <%s>, shift <%s>, user <%s>".formatted(id, shiftId, userId));
+    public ShiftView assignUserToShift(@PathVariable String id,
+                                       @PathVariable String shiftId,
+                                       @PathVariable String userId) {
+        if (LOG.isInfoEnabled()) {
+            LOG.info("assignUserToShift, shop <{}>, shift <{}>, user <{}>", id, shiftId, userId);
+        }
 
-        Optional<Shop> shoptional = shopRepository.findById(UUID.fromString(id));
-        Shop shop = shoptional.orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Shop not found"));
+        try {
+            Shift shift = workshiftBrain.assignUserToShift(
+                    UUID.fromString(id), UUID.fromString(shiftId), UUID.fromString(userId));
 
-        Optional<Shift> shiftOptional = shop.findShift(UUID.fromString(shiftId));
-        Shift shift = shiftOptional.orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Shift not found"));
+            if (LOG.isInfoEnabled()) {
+                LOG.info("user <{}> assigned shift <{}> in shop <{}>", userId, shiftId, id);
+            }
+            return ShiftView.of(shift);
+        } catch (ShopNotFoundException | ShiftNotFoundException | UserNotFoundException e) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, rejectionReason(e), e);
+        } catch (RuleViolationException e) {
+            throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY, rejectionReason(e), e);
+        }
+    }
 
-        Optional<User> userOptional = userRepository.findById(UUID.fromString(userId));
-        User user = userOptional.orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found"));
+    @PutMapping(value = "/{id}/shift/{shiftId}/unassign")
+    @ResponseStatus(code = HttpStatus.OK)
+    public ShiftView unassignShift(@PathVariable String id,
+                                   @PathVariable String shiftId) {
+        LOG.info("unassignShift, shop <{}>, shift <{}>", id, shiftId);
+
+        try {
+            Shift shift = workshiftBrain.unassignShift(UUID.fromString(id), UUID.fromString(shiftId));
 
+            LOG.info("shift <{}> unassigned in shop <{}>", shiftId, id);
+            return ShiftView.of(shift);
+        } catch (ShopNotFoundException | ShiftNotFoundException e) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, rejectionReason(e), e);
+        }
+    }
+
+    /**
+     * the assignees of the two shifts swap them, if both keep to the rules
+     */
+    @PutMapping(value = "/{id}/shifts/swap")
+    @ResponseStatus(code = HttpStatus.OK)
+    public List<ShiftView> swapShifts(@PathVariable String id,
+                                      @RequestBody ShiftSwap swap) {
+        if (LOG.isInfoEnabled()) {
+            LOG.info("swapShifts, shop <{}>, shifts <{}> and <{}>", id, swap.firstShiftId(), swap.secondShiftId());
+        }
+
+        if (swap.firstShiftId() == null || swap.secondShiftId() == null || swap.firstShiftId().equals(swap.secondShiftId())) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Two different shifts must be given");
+        }
 
         try {
-            Shop persistedShop = workshiftBrain.assignUserToShift(shop, shift, user);
+            List<Shift> shifts = workshiftBrain.swapShifts(UUID.fromString(id), swap.firstShiftId(), swap.secondShiftId());
+
+            if (LOG.isInfoEnabled()) {
+                LOG.info("shifts <{}> and <{}> swapped in shop <{}>", swap.firstShiftId(), swap.secondShiftId(), id);
+            }
+            return shifts.stream().map(ShiftView::of).toList();
+        } catch (ShopNotFoundException | ShiftNotFoundException e) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, rejectionReason(e), e);
+        } catch (RuleViolationException e) {
+            throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY, rejectionReason(e), e);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+    }
+
+    @PutMapping(value = "/{id}/shifts/assignments")
+    @ResponseStatus(code = HttpStatus.OK)
+    public List<BatchItemView> assignUsersToShifts(@PathVariable String id,
+                                                   @RequestBody List<ShiftAssignment> assignments) {
+        LOG.info("assignUsersToShifts, shop <{}>, assignments <{}>", id, assignments.size());
+
+        UUID shopId = UUID.fromString(id);
+        if (!shopRepository.existsById(shopId)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Shop not found");
+        }
+
+        List<BatchItemView> items = toViews(workshiftBrain.assignUsersToShifts(shopId, assignments));
+
+        if (LOG.isInfoEnabled()) {
+            LOG.info("shifts assigned in shop <{}>, <{}> of <{}>", id, countAccepted(items), items.size());
+        }
+        return items;
+    }
+
+    /**
+     * fills the available shifts with the shops employees, searching for at most the given budget
+     */
+    @PutMapping(value = "/{id}/shifts/auto-assign")
+    @ResponseStatus(code = HttpStatus.OK)
+    public RosterView autoAssign(@PathVariable String id,
+                                 @RequestParam(defaultValue = "2000") long budgetMillis) {
+        LOG.info("autoAssign, shop <{}>, budget <{}>ms", id, budgetMillis);
+
+        if (budgetMillis < 1 || budgetMillis > MAXIMUM_BUDGET_MILLIS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Budget must be between 1 and %s ms".formatted(MAXIMUM_BUDGET_MILLIS));
+        }
+
+        try {
+            Roster roster = workshiftBrain.autoAssign(UUID.fromString(id), Duration.ofMillis(budgetMillis));
+
+            if (LOG.isInfoEnabled()) {
+                LOG.info("shifts auto assigned in shop <{}>, <{}> assigned, <{}> still available",
+                        id, roster.assigned().size(), roster.unassigned().size());
+            }
+            return RosterView.of(roster);
+        } catch (ShopNotFoundException e) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, rejectionReason(e), e);
+        }
+    }
+
+    /**
+     * which of the shops employees can take each of the shifts, and why the others can't
+     */
+    @GetMapping(value = "/{id}/shifts/eligibility")
+    public List<EligibilityView> eligibility(@PathVariable String id,
+                                             @RequestParam List<UUID> shiftId) {
+        LOG.info("eligibility, shop <{}>, shifts <{}>", id, shiftId.size());
+
+        UUID shopId = UUID.fromString(id);
+        if (!shopRepository.existsById(shopId)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Shop not found");
+        }
+
+        List<Eligibility> eligibilities = workshiftBrain.eligibility(shopId, shiftId);
+        if (eligibilities.size() < shiftId.stream().distinct().count()) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Shift not found");
+        }
+        return eligibilities.stream().map(EligibilityView::of).toList();
+    }
+
+    /**
+     * the shift counts of the shop from the journal projection, a few seconds behind the changes
+     */
+    @GetMapping(value = "/{id}/summary")
+    public ShopSummaryView summary(@PathVariable String id) {
+        LOG.info("summary, shop <{}>", id);
+
+        UUID shopId = UUID.fromString(id);
+        if (!shopRepository.existsById(shopId)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Shop not found");
+        }
+
+        Instant asOf = shopSummaryProjector.projectedUntil();
+        return ShopSummaryView.of(shopSummaryRepository.findById(shopId).orElseGet(() -> new ShopSummary(shopId)), asOf);
+    }
+
+    @GetMapping(value = "/{id}/shifts")
+    public ShiftPage listShifts(@PathVariable String id,
+                                @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                @RequestParam(required = false) Boolean assigned,
+                                @RequestParam(required = false) String after,
+                                @RequestParam(defaultValue = "50") int size) {
+        if (LOG.isInfoEnabled()) {
+            LOG.info("listShifts, shop <{}>, from <{}>, to <{}>, assigned <{}>, after <{}>, size <{}>",
+                    id, from, to, assigned, after, size);
+        }
+
+        UUID shopId = UUID.fromString(id);
+        if (!shopRepository.existsById(shopId)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Shop not found");
+        }
+        if (size < 1 || size > MAXIMUM_PAGE_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Size must be between 1 and %s".formatted(MAXIMUM_PAGE_SIZE));
+        }
+
+        LocalDateTime windowStart = from != null ? from : LocalDate.now().atStartOfDay();
+        LocalDateTime windowEnd = to != null ? to : windowStart.plusDays(DEFAULT_WINDOW_DAYS);
+        boolean includeAssigned = assigned == null || assigned;
+        boolean includeAvailable = assigned == null || !assigned;
+        PageRequest page = PageRequest.ofSize(size);
+
+        List<Shift> shifts;
+        if (after == null) {
+            shifts = shiftRepository.findShopShifts(
+                    shopId, windowStart, windowEnd, includeAssigned, includeAvailable, page);
+        } else {
+            ShiftPage.Cursor cursor = parseCursor(after);
+            shifts = shiftRepository.findShopShiftsAfter(
+                    shopId, windowStart, windowEnd, includeAssigned, includeAvailable, cursor.start(), cursor.id(), page);
+        }
+
+        return ShiftPage.of(shifts, size);
+    }
+
+    /**
+     * All the shops shifts in start order, one per line as ndjson or csv, written while they are read from the db.
+     * Optionally only those starting within [from, to) or assigned to one user.
+     */
+    @GetMapping(value = "/{id}/shifts/export")
+    public ResponseEntity<StreamingResponseBody> exportShifts(@PathVariable String id,
+                                                              @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                              @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                                              @RequestParam(required = false) UUID assigneeId,
+                                                              @RequestParam(defaultValue = "ndjson") String format) {
+        if (LOG.isInfoEnabled()) {
+            LOG.info("exportShifts, shop <{}>, from <{}>, to <{}>, assignee <{}>, format <{}>", id, from, to, assigneeId, format);
+        }
+
+        UUID shopId = UUID.fromString(id);
+        if (!shopRepository.existsById(shopId)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Shop not found");
+        }
+        ShiftExporter.Format exportFormat = parseFormat(format);
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"shifts-%s.%s\"".formatted(id, exportFormat.getExtension()))
+                .body(out -> shiftExporter.export(shopId, from, to, assigneeId, exportFormat, out));
+    }
+
+    /**
+     * The shops shift changes from now on as server-sent events, shift-added, shift-assigned and shift-released
+     * with the shift as data. A resync event means changes were dropped, the shifts are to be listed again.
+     */
+    @GetMapping(value = "/{id}/shifts/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamShifts(@PathVariable String id) {
+        LOG.info("streamShifts, shop <{}>", id);
+
+        UUID shopId = UUID.fromString(id);
+        if (!shopRepository.existsById(shopId)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Shop not found");
+        }
+
+        return shiftFeed.subscribe(shopId);
+    }
+
+    private static ShiftExporter.Format parseFormat(String format) {
+        try {
+            return ShiftExporter.Format.valueOf(format.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Format must be ndjson or csv", e);
+        }
+    }
+
+    /**
+     * the shops shifts moved to the archive by ShiftArchiver, paged like listShifts,
+     * by default the window of days before now
+     */
+    @GetMapping(value = "/{id}/shifts/history")
+    public ShiftPage listShiftHistory(@PathVariable String id,
+                                      @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                      @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                      @RequestParam(required = false) String after,
+                                      @RequestParam(defaultValue = "50") int size) {
+        if (LOG.isInfoEnabled()) {
+            LOG.info("listShiftHistory, shop <{}>, from <{}>, to <{}>, after <{}>, size <{}>", id, from, to, after, size);
+        }
+
+        UUID shopId = UUID.fromString(id);
+        if (!shopRepository.existsById(shopId)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Shop not found");
+        }
+        if (size < 1 || size > MAXIMUM_PAGE_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Size must be between 1 and %s".formatted(MAXIMUM_PAGE_SIZE));
+        }
+
+        LocalDateTime windowEnd = to != null ? to : LocalDateTime.now();
+        LocalDateTime windowStart = from != null ? from : windowEnd.minusDays(DEFAULT_WINDOW_DAYS);
+        PageRequest page = PageRequest.ofSize(size);
+
+        List<ArchivedShift> shifts;
+        if (after == null) {
+            shifts = archivedShiftRepository.findShopHistory(shopId, windowStart, windowEnd, page);
+        } else {
+            ShiftPage.Cursor cursor = parseCursor(after);
+            shifts = archivedShiftRepository.findShopHistoryAfter(shopId, windowStart, windowEnd, cursor.start(), cursor.id(), page);
+        }
+
+        return ShiftPage.ofViews(shifts.stream().map(ArchivedShift::toView).toList(), size);
+    }
+
+    private static ShiftPage.Cursor parseCursor(String after) {
+        try {
+            return ShiftPage.Cursor.parse(after);
+        } catch (RuntimeException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor", e);
+        }
+    }
+
+    /**
+     * still conflicting with concurrent changes after the retries in WorkshiftBrain
+     */
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    @ResponseStatus(code = HttpStatus.CONFLICT)
+    public void concurrentChange(OptimisticLockingFailureException e) {
+        LOG.warn("concurrent change <{}>", e.getMessage());
+    }
+
+    private static List<BatchItemView> toViews(List<BatchItem> items) {
+        List<BatchItemView> views = new ArrayList<>(items.size());
+        for (int index = 0; index < items.size(); index++) {
+            BatchItem item = items.get(index);
+            views.add(item.isAccepted()
+                    ? new BatchItemView(index, ShiftView.of(item.shift()), null)
+                    : new BatchItemView(index, null, rejectionReason(item)));
+        }
+        return views;
+    }
+
+    private static long countAccepted(List<BatchItemView> items) {
+        return items.stream().filter(item -> item.error() == null).count();
+    }
+
+    private static String rejectionReason(BatchItem item) {
+        return item.violation() != null ? item.violation().getReason() : rejectionReason(item.rejection());
+    }
 
-            LOG.info("user <%s> assigned shift in shop <%s>".formatted(userId, persistedShop));
-            return persistedShop;
-        } catch (HoursExceededException e) {
-            throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY, "Hours exceeded within 24 hour window", e);
-        } catch (DaysInRowExceededException e) {
-            throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY, "Days in row exceeded", e);
-        } catch (ConflictingShiftException e) {
-            throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY, "Conflicting shift detected", e);
+    private static String rejectionReason(Exception rejection) {
+        if (rejection instanceof RuleViolationException e) {
+            return e.getViolation().getReason();
+        } else if (rejection instanceof ShopNotFoundException) {
+            return "Shop not found";
+        } else if (rejection instanceof ShiftNotFoundException) {
+            return "Shift not found";
+        } else if (rejection instanceof UserNotFoundException) {
+            return "User not found";
         }
+        return rejection.getMessage();
     }
 
 }
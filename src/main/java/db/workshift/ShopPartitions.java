@@ -0,0 +1,73 @@
+package db.workshift;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.Assert;
+
+import java.net.URI;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+/**
+ * Which node owns which shops. With workshift.partition.nodes listing the base urls of the nodes, in the same order
+ * on every node, each node owns the shops whose id hashes to its workshift.partition.index. Without it there is
+ * one partition and this node owns everything.
+ * Users are not partitioned, the same hash on the user id picks the node keeping their ScheduleDirectory entries.
+ * The nodes share workshift.partition.secret, sent along on every call between them, see InternalEndpointInterceptor.
+ */
+@Component
+class ShopPartitions {
+
+    private final List<URI> nodes;
+    private final int index;
+    private final String secret;
+
+    ShopPartitions(@Value("${workshift.partition.nodes:}") List<URI> nodes,
+                   @Value("${workshift.partition.index:0}") int index,
+                   @Value("${workshift.partition.secret:}") String secret) {
+        Assert.isTrue(nodes.isEmpty() || (index >= 0 && index < nodes.size()),
+                "workshift.partition.index must be the index of this node in workshift.partition.nodes");
+        Assert.isTrue(nodes.size() <= 1 || !secret.isBlank(),
+                "workshift.partition.secret must be set for a partitioned deployment");
+        this.nodes = List.copyOf(nodes);
+        this.index = index;
+        this.secret = secret;
+    }
+
+    boolean isPartitioned() {
+        return nodes.size() > 1;
+    }
+
+    String secret() {
+        return secret;
+    }
+
+    int partitionOf(UUID id) {
+        return isPartitioned() ? Math.floorMod(id.hashCode(), nodes.size()) : 0;
+    }
+
+    boolean isLocal(UUID id) {
+        return partitionOf(id) == index;
+    }
+
+    URI nodeOf(UUID id) {
+        return nodes.get(partitionOf(id));
+    }
+
+    List<URI> otherNodes() {
+        return IntStream.range(0, nodes.size()).filter(n -> n != index).mapToObj(nodes::get).toList();
+    }
+
+    /**
+     * a random id of this nodes partition, for a shop created here
+     */
+    UUID newShopId() {
+        UUID id = UUID.randomUUID();
+        while (!isLocal(id)) {
+            id = UUID.randomUUID();
+        }
+        return id;
+    }
+
+}
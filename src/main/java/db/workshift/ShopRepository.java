@@ -1,9 +1,23 @@
 package db.workshift;
 
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.repository.CrudRepository;
 
+import java.util.Optional;
 import java.util.UUID;
 
 public interface ShopRepository extends CrudRepository<Shop, UUID> {
 
+    /**
+     * the shop with its shifts in one select, for adding and assigning shifts
+     */
+    @EntityGraph(attributePaths = "shifts")
+    Optional<Shop> findWithShiftsById(UUID id);
+
+    /**
+     * the shop with its employees in one select, for adding users
+     */
+    @EntityGraph(attributePaths = "employees")
+    Optional<Shop> findWithEmployeesById(UUID id);
+
 }
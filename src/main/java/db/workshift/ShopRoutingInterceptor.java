@@ -0,0 +1,150 @@
+package db.workshift;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.io.IOException;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Forwards the requests for a shop of another partition to the node owning it, see ShopPartitions, and copies
+ * its response back. A forwarded request is never forwarded again, a node that disagrees about
+ * the owner answers 421 rather than passing the request around. The streaming endpoints, the shift feed and
+ * the export, are redirected to the owner with a 307 instead, so a long stream holds no thread of this node.
+ */
+class ShopRoutingInterceptor implements HandlerInterceptor {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ShopRoutingInterceptor.class);
+
+    static final String FORWARDED_HEADER = "X-Workshift-Forwarded";
+
+    private static final int MISDIRECTED_REQUEST = 421;
+    private static final List<String> REQUEST_HEADERS = List.of(
+            HttpHeaders.CONTENT_TYPE, HttpHeaders.ACCEPT, RequestMdcInterceptor.REQUEST_ID_HEADER);
+    private static final List<String> RESPONSE_HEADERS = List.of(
+            HttpHeaders.CONTENT_TYPE, HttpHeaders.CONTENT_DISPOSITION);
+
+    private final ShopPartitions partitions;
+    private final RestClient restClient;
+
+    ShopRoutingInterceptor(ShopPartitions partitions, RestClient restClient) {
+        this.partitions = partitions;
+        this.restClient = restClient;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws IOException {
+        UUID shopId = shopId(request, handler);
+        if (shopId == null || partitions.isLocal(shopId)) {
+            return true;
+        }
+        if (request.getHeader(FORWARDED_HEADER) != null) {
+            response.sendError(MISDIRECTED_REQUEST, "Shop not owned by this node");
+            return false;
+        }
+
+        URI node = partitions.nodeOf(shopId);
+        if (streams((HandlerMethod) handler)) {
+            LOG.debug("redirecting shop <{}> to <{}>", shopId, node);
+            response.setStatus(HttpServletResponse.SC_TEMPORARY_REDIRECT);
+            response.setHeader(HttpHeaders.LOCATION, uri(request, node).toString());
+            return false;
+        }
+        LOG.debug("forwarding shop <{}> to <{}>", shopId, node);
+        try {
+            forward(request, response, node);
+        } catch (ResourceAccessException e) {
+            LOG.warn("node <{}> owning shop <{}> unavailable <{}>", node, shopId, e.getMessage());
+            response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE, "Partition unavailable");
+        }
+        return false;
+    }
+
+    private void forward(HttpServletRequest request, HttpServletResponse response, URI node) throws IOException {
+        URI uri = uri(request, node);
+        byte[] body = request.getInputStream().readAllBytes();
+
+        RestClient.RequestBodySpec forwarded = restClient.method(HttpMethod.valueOf(request.getMethod()))
+                .uri(uri)
+                .headers(headers -> {
+                    REQUEST_HEADERS.forEach(name -> {
+                        String value = request.getHeader(name);
+                        if (value != null) {
+                            headers.set(name, value);
+                        }
+                    });
+                    headers.set(FORWARDED_HEADER, "true");
+                });
+        // no body at all rather than an empty one, which would turn a get into a post on some clients
+        if (body.length > 0) {
+            forwarded.body(body);
+        }
+        forwarded.exchange((forwardedRequest, forwardedResponse) -> {
+            response.setStatus(forwardedResponse.getStatusCode().value());
+            RESPONSE_HEADERS.forEach(name -> {
+                String value = forwardedResponse.getHeaders().getFirst(name);
+                if (value != null) {
+                    response.setHeader(name, value);
+                }
+            });
+            forwardedResponse.getBody().transferTo(response.getOutputStream());
+            return null;
+        });
+    }
+
+    private static URI uri(HttpServletRequest request, URI node) {
+        return UriComponentsBuilder.fromUri(node)
+                .path(request.getRequestURI())
+                .query(request.getQueryString())
+                .build(true)
+                .toUri();
+    }
+
+    /**
+     * whether the endpoint answers with a stream, an event stream or a streamed body
+     */
+    private static boolean streams(HandlerMethod method) {
+        Type type = method.getMethod().getGenericReturnType();
+        return type == SseEmitter.class
+                || type instanceof ParameterizedType parameterized
+                && parameterized.getActualTypeArguments()[0] == StreamingResponseBody.class;
+    }
+
+    /**
+     * the id of the shop paths, null for the paths without one and for ids that are no uuid
+     */
+    private static UUID shopId(HttpServletRequest request, Object handler) {
+        if (!(handler instanceof HandlerMethod method) || method.getBeanType() != ShopController.class) {
+            return null;
+        }
+        @SuppressWarnings("unchecked")
+        Map<String, String> pathVariables = (Map<String, String>) request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+        String id = pathVariables != null ? pathVariables.get("id") : null;
+        if (id == null) {
+            return null;
+        }
+        try {
+            return UUID.fromString(id);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+}
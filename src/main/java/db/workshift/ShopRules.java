@@ -0,0 +1,51 @@
+package db.workshift;
+
+import jakarta.persistence.Embeddable;
+import org.springframework.util.Assert;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The limits a shop sets for its employees, the optional ones are off when null
+ *
+ * @param windowHours          length of the window the hours are counted in
+ * @param maximumHoursInWindow hours a user can work within the window
+ * @param maximumDaysInRow     days in a row a user can work
+ * @param minimumRestHours     hours off required between two shifts
+ * @param maximumHoursPerWeek  hours a user can work within 7 days
+ */
+@Embeddable
+public record ShopRules(int windowHours,
+                        int maximumHoursInWindow,
+                        int maximumDaysInRow,
+                        Integer minimumRestHours,
+                        Integer maximumHoursPerWeek) {
+
+    public static final ShopRules DEFAULT = new ShopRules(24, 8, 5, null, null);
+
+    public ShopRules {
+        Assert.isTrue(windowHours > 0, "windowHours must be positive");
+        Assert.isTrue(maximumHoursInWindow > 0, "maximumHoursInWindow must be positive");
+        Assert.isTrue(maximumDaysInRow > 0, "maximumDaysInRow must be positive");
+        Assert.isTrue(minimumRestHours == null || minimumRestHours > 0, "minimumRestHours must be positive");
+        Assert.isTrue(maximumHoursPerWeek == null || maximumHoursPerWeek > 0, "maximumHoursPerWeek must be positive");
+    }
+
+    RulePipeline compile() {
+        List<ShiftRule> rules = new ArrayList<>();
+        // the default window keeps the reason clients know
+        rules.add(new MaximumHoursInWindowRule(windowHours, maximumHoursInWindow,
+                windowHours == 24 ? RuleViolation.HOURS_EXCEEDED : RuleViolation.WINDOW_HOURS_EXCEEDED));
+        rules.add(new MaximumDaysInRowRule(maximumDaysInRow));
+        if (minimumRestHours != null) {
+            rules.add(new MinimumRestRule(minimumRestHours));
+        }
+        if (maximumHoursPerWeek != null) {
+            rules.add(new MaximumHoursPerWeekRule(maximumHoursPerWeek));
+        }
+        rules.add(new NoConflictingShiftRule());
+        return new RulePipeline(rules);
+    }
+
+}
@@ -0,0 +1,54 @@
+package db.workshift;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Version;
+
+import java.util.UUID;
+
+/**
+ * Read model of the shift counts of a shop, built from the journal by ShopSummaryProjector
+ */
+@Entity
+public class ShopSummary {
+
+    @Id
+    private UUID shopId;
+
+    /**
+     * also makes saving a new one a plain insert
+     */
+    @Version
+    private Long version;
+
+    private long shifts;
+    private long assigned;
+
+    protected ShopSummary() {
+    }
+
+    ShopSummary(UUID shopId) {
+        this.shopId = shopId;
+    }
+
+    UUID getShopId() {
+        return shopId;
+    }
+
+    long getShifts() {
+        return shifts;
+    }
+
+    long getAssigned() {
+        return assigned;
+    }
+
+    void apply(ShiftEvent event) {
+        switch (event.getType()) {
+            case ADDED -> shifts++;
+            case ASSIGNED -> assigned++;
+            case UNASSIGNED -> assigned--;
+        }
+    }
+
+}
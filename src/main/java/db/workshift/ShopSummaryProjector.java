@@ -0,0 +1,104 @@
+package db.workshift;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Builds the ShopSummary rows from the journal in the background, a batch of events per transaction together
+ * with the checkpoint. The events are read in the order of their position, assigned by the db on insert. A
+ * transaction committing after a later one leaves a gap the checkpoint keeps, its events are projected when they
+ * show up. A gap still open after the gap timeout was an insert rolled back.
+ */
+@Component
+@Lazy(false)
+class ShopSummaryProjector {
+
+    static final String NAME = "shop-summary";
+
+    private static final Logger LOG = LoggerFactory.getLogger(ShopSummaryProjector.class);
+
+    private final ShiftEventRepository shiftEventRepository;
+    private final ShopSummaryRepository shopSummaryRepository;
+    private final ProjectionCheckpointRepository checkpointRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration gapTimeout;
+    private final int batchSize;
+
+    ShopSummaryProjector(ShiftEventRepository shiftEventRepository,
+                         ShopSummaryRepository shopSummaryRepository,
+                         ProjectionCheckpointRepository checkpointRepository,
+                         TransactionTemplate transactionTemplate,
+                         @Value("${workshift.projection.gap-timeout:PT10M}") Duration gapTimeout,
+                         @Value("${workshift.projection.batch-size:1000}") int batchSize) {
+        this.shiftEventRepository = shiftEventRepository;
+        this.shopSummaryRepository = shopSummaryRepository;
+        this.checkpointRepository = checkpointRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.gapTimeout = gapTimeout;
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(initialDelayString = "${workshift.projection.interval:PT1S}", fixedDelayString = "${workshift.projection.interval:PT1S}")
+    void project() {
+        try {
+            projectCommitted();
+        } catch (OptimisticLockingFailureException e) {
+            LOG.info("another projector moved the checkpoint, retrying next time <{}>", e.getMessage());
+        }
+    }
+
+    /**
+     * @return the number of events projected
+     */
+    int projectCommitted() {
+        int projected = 0;
+        int batch;
+        do {
+            batch = transactionTemplate.execute(status -> projectBatch(Instant.now()));
+            projected += batch;
+        } while (batch >= batchSize);
+        return projected;
+    }
+
+    private int projectBatch(Instant now) {
+        ProjectionCheckpoint checkpoint = checkpointRepository.findById(NAME)
+                .orElseGet(() -> checkpointRepository.save(new ProjectionCheckpoint(NAME)));
+        List<ShiftEvent> filled = checkpoint.getGaps().isEmpty()
+                ? List.of()
+                : shiftEventRepository.findEventsAt(List.copyOf(checkpoint.getGaps()));
+        List<ShiftEvent> read = shiftEventRepository.findEventsAfter(checkpoint.getPosition(), PageRequest.ofSize(batchSize));
+
+        Map<UUID, ShopSummary> summaries = new HashMap<>();
+        List<UUID> shopIds = Stream.concat(filled.stream(), read.stream()).map(ShiftEvent::getShopId).distinct().toList();
+        shopSummaryRepository.findAllById(shopIds).forEach(summary -> summaries.put(summary.getShopId(), summary));
+        Stream.concat(filled.stream(), read.stream()).forEach(event ->
+                summaries.computeIfAbsent(event.getShopId(), shopId -> shopSummaryRepository.save(new ShopSummary(shopId)))
+                        .apply(event));
+        checkpoint.advance(filled, read, now);
+        checkpoint.expireGaps(now.minus(gapTimeout));
+        return filled.size() + read.size();
+    }
+
+    /**
+     * when the last event projected was recorded, those of transactions still running aside
+     */
+    Instant projectedUntil() {
+        return checkpointRepository.findById(NAME).map(ProjectionCheckpoint::getRecordedAt).orElse(Instant.EPOCH);
+    }
+
+}
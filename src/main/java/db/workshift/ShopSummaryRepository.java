@@ -0,0 +1,8 @@
+package db.workshift;
+
+import org.springframework.data.repository.CrudRepository;
+
+import java.util.UUID;
+
+public interface ShopSummaryRepository extends CrudRepository<ShopSummary, UUID> {
+}
@@ -0,0 +1,16 @@
+package db.workshift;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * The shift counts of a shop as projected from the journal, complete up to asOf
+ */
+public record ShopSummaryView(UUID shopId, long shifts, long assigned, long available, Instant asOf) {
+
+    static ShopSummaryView of(ShopSummary summary, Instant asOf) {
+        return new ShopSummaryView(summary.getShopId(), summary.getShifts(), summary.getAssigned(),
+                summary.getShifts() - summary.getAssigned(), asOf);
+    }
+
+}
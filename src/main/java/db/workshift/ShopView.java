@@ -0,0 +1,14 @@
+package db.workshift;
+
+import java.util.UUID;
+
+/**
+ * What the api returns for a changed shop instead of the whole graph of employees and shifts
+ */
+public record ShopView(UUID id, int employees) {
+
+    static ShopView of(Shop shop) {
+        return new ShopView(shop.getId(), shop.getEmployeeCount());
+    }
+
+}
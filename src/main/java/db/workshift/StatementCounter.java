@@ -0,0 +1,29 @@
+package db.workshift;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Counts the sql statements hibernate prepares on the current thread, a request runs on one thread,
+ * so between two resets it counts the statements of that request
+ */
+class StatementCounter implements StatementInspector {
+
+    private static final ThreadLocal<int[]> COUNT = ThreadLocal.withInitial(() -> new int[1]);
+
+    @Override
+    public String inspect(String sql) {
+        COUNT.get()[0]++;
+        return sql;
+    }
+
+    /**
+     * @return the statements counted since the last reset
+     */
+    int reset() {
+        int[] count = COUNT.get();
+        int statements = count[0];
+        count[0] = 0;
+        return statements;
+    }
+
+}
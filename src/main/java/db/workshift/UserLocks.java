@@ -0,0 +1,46 @@
+package db.workshift;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Striped locks on user ids. Every rule is about the shifts of one user, so holding the users lock
+ * while validating and saving means no other request changes that users schedule in between.
+ * ReentrantLock rather than synchronized, so a virtual thread waiting for a user doesn't pin its carrier thread.
+ */
+class UserLocks {
+
+    private final ReentrantLock[] stripes;
+
+    UserLocks(int stripes) {
+        this.stripes = new ReentrantLock[stripes];
+        for (int n = 0; n < stripes; n++) {
+            this.stripes[n] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * locks the stripes of all the users, always in stripe order so two requests can't deadlock
+     */
+    Held lock(Collection<?> userIds) {
+        List<ReentrantLock> locks = userIds.stream()
+                .mapToInt(userId -> Math.floorMod(userId.hashCode(), stripes.length))
+                .distinct()
+                .sorted()
+                .mapToObj(stripe -> stripes[stripe])
+                .toList();
+        locks.forEach(ReentrantLock::lock);
+        return new Held(locks);
+    }
+
+    record Held(List<ReentrantLock> locks) implements AutoCloseable {
+
+        @Override
+        public void close() {
+            locks.forEach(ReentrantLock::unlock);
+        }
+
+    }
+
+}
@@ -0,0 +1,216 @@
+package db.workshift;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The shifts assigned to one user, ordered by start, so the rules only look at the shifts around a new one.
+ * Kept as sorted arrays of the shifts epoch seconds next to the shifts, so the lookups and scans read plain longs
+ * one after the other instead of following a reference to every shift, and don't box or allocate.
+ */
+class UserSchedule {
+
+    private Shift[] shifts = new Shift[4];
+    private long[] starts = new long[4];
+    private long[] ends = new long[4];
+    private int size;
+
+    /**
+     * how far back of a period a shift can start and still overlap it
+     */
+    private long longestShiftSeconds;
+
+    void add(Shift shift) {
+        if (size == shifts.length) {
+            shifts = Arrays.copyOf(shifts, size * 2);
+            starts = Arrays.copyOf(starts, size * 2);
+            ends = Arrays.copyOf(ends, size * 2);
+        }
+        int index = firstStartingFrom(shift.getStartEpochSecond() + 1);
+        System.arraycopy(shifts, index, shifts, index + 1, size - index);
+        System.arraycopy(starts, index, starts, index + 1, size - index);
+        System.arraycopy(ends, index, ends, index + 1, size - index);
+        shifts[index] = shift;
+        starts[index] = shift.getStartEpochSecond();
+        ends[index] = shift.getEndEpochSecond();
+        size++;
+
+        longestShiftSeconds = Math.max(longestShiftSeconds, shift.getEndEpochSecond() - shift.getStartEpochSecond());
+    }
+
+    void remove(Shift shift) {
+        for (int index = firstStartingFrom(shift.getStartEpochSecond());
+             index < size && starts[index] == shift.getStartEpochSecond();
+             index++) {
+            if (shifts[index] == shift) {
+                System.arraycopy(shifts, index + 1, shifts, index, size - index - 1);
+                System.arraycopy(starts, index + 1, starts, index, size - index - 1);
+                System.arraycopy(ends, index + 1, ends, index, size - index - 1);
+                shifts[--size] = null;
+                return;
+            }
+        }
+    }
+
+    UserSchedule copy() {
+        UserSchedule copy = new UserSchedule();
+        copy.shifts = Arrays.copyOf(shifts, Math.max(size, 4));
+        copy.starts = Arrays.copyOf(starts, Math.max(size, 4));
+        copy.ends = Arrays.copyOf(ends, Math.max(size, 4));
+        copy.size = size;
+        copy.longestShiftSeconds = longestShiftSeconds;
+        return copy;
+    }
+
+    List<Shift> getShifts() {
+        return List.of(Arrays.copyOf(shifts, size));
+    }
+
+    /**
+     * the shifts starting within the given seconds, from inclusive, to exclusive
+     */
+    List<Shift> getShiftsStarting(long fromEpochSecond, long toEpochSecond) {
+        int from = firstStartingFrom(fromEpochSecond);
+        int to = firstStartingFrom(toEpochSecond);
+        return List.of(Arrays.copyOfRange(shifts, from, Math.max(from, to)));
+    }
+
+    long overlapSeconds(long fromEpochSecond, long toEpochSecond) {
+        return overlapSeconds(firstStartingFrom(fromEpochSecond - longestShiftSeconds), fromEpochSecond, toEpochSecond);
+    }
+
+    /**
+     * the shifts within reach of the rules checking the given one, searched for once and shared by the rules of
+     * the check. Only valid until the schedule changes.
+     *
+     * @param reachSeconds how far before the start or after the end of the shift the rules look
+     */
+    Around around(Shift shift, long reachSeconds) {
+        return new Around(firstStartingFrom(shift.getStartEpochSecond() - reachSeconds - longestShiftSeconds));
+    }
+
+    private long overlapSeconds(int fromIndex, long fromEpochSecond, long toEpochSecond) {
+        long total = 0;
+        for (int index = fromIndex; index < size && starts[index] < toEpochSecond; index++) {
+            total += Math.max(0, Math.min(ends[index], toEpochSecond) - Math.max(starts[index], fromEpochSecond));
+        }
+        return total;
+    }
+
+    /**
+     * index of the first shift starting at or after the given second, size if there is none
+     */
+    private int firstStartingFrom(long epochSecond) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (starts[middle] < epochSecond) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * The shifts of the schedule from the first one a rule checking a shift can reach on. The rules scan forward
+     * from there instead of each searching the schedule again, so more rules cost little more than fewer.
+     */
+    final class Around {
+
+        private final int from;
+
+        private Around(int from) {
+            this.from = from;
+        }
+
+        /**
+         * the seconds of the shifts within the given seconds, which have to be within reach
+         */
+        long overlapSeconds(long fromEpochSecond, long toEpochSecond) {
+            return UserSchedule.this.overlapSeconds(from, fromEpochSecond, toEpochSecond);
+        }
+
+        int countStartingBefore(long epochSecond) {
+            int index = from;
+            while (index < size && starts[index] < epochSecond) {
+                index++;
+            }
+            return index - from;
+        }
+
+        /**
+         * the most seconds the shifts and the given one, not in the schedule, add up to in any window of the given
+         * length overlapping the given shift. The sum only changes where an edge of the window passes an edge of a
+         * shift, so only the windows starting or ending at an edge of a shift are tried.
+         */
+        long mostSecondsInWindow(Shift shift, long windowSeconds) {
+            long start = shift.getStartEpochSecond();
+            long end = shift.getEndEpochSecond();
+            long most = Math.max(secondsInWindow(shift, start, windowSeconds), secondsInWindow(shift, end - windowSeconds, windowSeconds));
+            for (int index = from; index < size && starts[index] < end + windowSeconds; index++) {
+                long edgeStart = starts[index];
+                long edgeEnd = ends[index];
+                most = Math.max(most, secondsInWindow(shift, edgeStart, windowSeconds));
+                most = Math.max(most, secondsInWindow(shift, edgeStart - windowSeconds, windowSeconds));
+                most = Math.max(most, secondsInWindow(shift, edgeEnd, windowSeconds));
+                most = Math.max(most, secondsInWindow(shift, edgeEnd - windowSeconds, windowSeconds));
+            }
+            return most;
+        }
+
+        /**
+         * the seconds of the shifts and the given one in the window, 0 for a window not overlapping the given shift
+         */
+        private long secondsInWindow(Shift shift, long windowStart, long windowSeconds) {
+            long shiftSeconds = shift.overlapSeconds(windowStart, windowStart + windowSeconds);
+            return shiftSeconds > 0 ? shiftSeconds + overlapSeconds(windowStart, windowStart + windowSeconds) : 0;
+        }
+
+        /**
+         * the days in a row right before the given day with a shift starting on them, counted up to the limit
+         */
+        int consecutiveDaysBefore(long epochDay, int limit) {
+            int days = 0;
+            long expected = epochDay - 1;
+            for (int index = firstOnDay(epochDay) - 1; index >= 0 && days < limit; index--) {
+                long day = Math.floorDiv(starts[index], Period.SECONDS_PER_DAY);
+                if (day == expected) {
+                    days++;
+                    expected--;
+                } else if (day < expected) {
+                    break;
+                }
+            }
+            return days;
+        }
+
+        /**
+         * the days in a row right after the given day with a shift starting on them, counted up to the limit
+         */
+        int consecutiveDaysAfter(long epochDay, int limit) {
+            int days = 0;
+            long expected = epochDay + 1;
+            for (int index = firstOnDay(epochDay); index < size && days < limit; index++) {
+                long day = Math.floorDiv(starts[index], Period.SECONDS_PER_DAY);
+                if (day == expected) {
+                    days++;
+                    expected++;
+                } else if (day > expected) {
+                    break;
+                }
+            }
+            return days;
+        }
+
+        /**
+         * index of the first shift starting on or after the given day, which has to be within reach
+         */
+        private int firstOnDay(long epochDay) {
+            return from + countStartingBefore(epochDay * Period.SECONDS_PER_DAY);
+        }
+    }
+
+}
@@ -0,0 +1,66 @@
+package db.workshift;
+
+import jakarta.persistence.EmbeddedId;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Version;
+
+import java.time.LocalDate;
+
+/**
+ * The hours a user worked on one day across all shops and the number of shifts starting that day.
+ * Kept up to date by WorkedHours in the transactions that assign shifts, so reports read a row per day
+ * instead of every shift. A shift over midnight counts its hours on both days.
+ */
+@Entity
+public class WorkedDay {
+
+    /**
+     * the primary key (user_id, work_date) is the index the reports range over
+     */
+    @EmbeddedId
+    private WorkedDayKey id;
+
+    /**
+     * two shops assigning the same user on the same day update the same row
+     */
+    @Version
+    private Long version;
+
+    private long workedSeconds;
+    private int shiftCount;
+
+    protected WorkedDay() {
+    }
+
+    WorkedDay(WorkedDayKey id) {
+        this.id = id;
+    }
+
+    WorkedDayKey getId() {
+        return id;
+    }
+
+    public LocalDate getDay() {
+        return id.day();
+    }
+
+    public long getWorkedSeconds() {
+        return workedSeconds;
+    }
+
+    public int getShiftCount() {
+        return shiftCount;
+    }
+
+    void add(long seconds, int shifts) {
+        workedSeconds += seconds;
+        shiftCount += shifts;
+    }
+
+    @Override
+    public String toString() {
+        return "WorkedDay[userId=%s, day=%s, workedSeconds=%s, shiftCount=%s]"
+                .formatted(id.userId(), id.day(), workedSeconds, shiftCount);
+    }
+
+}
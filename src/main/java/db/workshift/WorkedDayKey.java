@@ -0,0 +1,12 @@
+package db.workshift;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+@Embeddable
+public record WorkedDayKey(@Column(name = "user_id") UUID userId,
+                           @Column(name = "work_date") LocalDate day) {
+}
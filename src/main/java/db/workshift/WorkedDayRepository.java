@@ -0,0 +1,26 @@
+package db.workshift;
+
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+public interface WorkedDayRepository extends CrudRepository<WorkedDay, WorkedDayKey> {
+
+    /**
+     * the days of any of the users within [from, to], in one select over the primary key
+     */
+    @Query("""
+            select d from WorkedDay d
+            where d.id.userId in :userIds
+              and d.id.day >= :from and d.id.day <= :to
+            order by d.id.userId, d.id.day""")
+    List<WorkedDay> findDays(@Param("userIds") Collection<UUID> userIds,
+                             @Param("from") LocalDate from,
+                             @Param("to") LocalDate to);
+
+}
@@ -0,0 +1,14 @@
+package db.workshift;
+
+import java.time.LocalDate;
+
+/**
+ * What the api returns for a day a user worked, the hours as a decimal for payroll
+ */
+public record WorkedDayView(LocalDate day, double hours, int shifts) {
+
+    static WorkedDayView of(WorkedDay day) {
+        return new WorkedDayView(day.getDay(), day.getWorkedSeconds() / (double) Period.SECONDS_PER_HOUR, day.getShiftCount());
+    }
+
+}
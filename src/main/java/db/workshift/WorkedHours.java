@@ -0,0 +1,112 @@
+package db.workshift;
+
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps the WorkedDay rows up to date, by the hours of the shifts assigned or unassigned in the current
+ * transaction. All the days touched are read in one select and written in the jdbc batches of the commit.
+ */
+@Component
+class WorkedHours {
+
+    private final WorkedDayRepository workedDayRepository;
+
+    WorkedHours(WorkedDayRepository workedDayRepository) {
+        this.workedDayRepository = workedDayRepository;
+    }
+
+    /**
+     * adds the shifts to the days of their assignees
+     */
+    void assigned(Collection<Shift> shifts) {
+        Map<WorkedDayKey, long[]> changes = new HashMap<>();
+        for (Shift shift : shifts) {
+            change(changes, shift.getAssignee().getId(), shift, 1);
+        }
+        apply(changes);
+    }
+
+    /**
+     * takes the shift off the days of the user it was assigned to
+     */
+    void unassigned(Shift shift, UUID userId) {
+        Map<WorkedDayKey, long[]> changes = new HashMap<>();
+        change(changes, userId, shift, -1);
+        apply(changes);
+    }
+
+    /**
+     * moves the two shifts from the days of their previous assignees to the days of the new ones
+     */
+    void swapped(Shift first, UUID firstUserId, Shift second, UUID secondUserId) {
+        Map<WorkedDayKey, long[]> changes = new HashMap<>();
+        change(changes, firstUserId, first, -1);
+        change(changes, secondUserId, second, -1);
+        change(changes, first.getAssignee().getId(), first, 1);
+        change(changes, second.getAssignee().getId(), second, 1);
+        apply(changes);
+    }
+
+    List<WorkedDay> days(UUID userId, LocalDate from, LocalDate to) {
+        return workedDayRepository.findDays(List.of(userId), from, to);
+    }
+
+    /**
+     * splits the shift at midnight, the shift itself counts on the day it starts
+     */
+    private static void change(Map<WorkedDayKey, long[]> changes, UUID userId, Shift shift, int sign) {
+        LocalDateTime from = shift.getStart();
+        LocalDateTime end = shift.getEnd();
+        int shifts = sign;
+        while (from.isBefore(end)) {
+            LocalDateTime midnight = from.toLocalDate().plusDays(1).atStartOfDay();
+            LocalDateTime until = end.isBefore(midnight) ? end : midnight;
+
+            long[] change = changes.computeIfAbsent(new WorkedDayKey(userId, from.toLocalDate()), day -> new long[2]);
+            change[0] += sign * Duration.between(from, until).toSeconds();
+            change[1] += shifts;
+
+            shifts = 0;
+            from = until;
+        }
+    }
+
+    private void apply(Map<WorkedDayKey, long[]> changes) {
+        if (changes.isEmpty()) {
+            return;
+        }
+
+        Set<UUID> userIds = new HashSet<>();
+        LocalDate from = LocalDate.MAX;
+        LocalDate to = LocalDate.MIN;
+        for (WorkedDayKey key : changes.keySet()) {
+            userIds.add(key.userId());
+            from = key.day().isBefore(from) ? key.day() : from;
+            to = key.day().isAfter(to) ? key.day() : to;
+        }
+        Map<WorkedDayKey, WorkedDay> days = workedDayRepository.findDays(userIds, from, to).stream()
+                .collect(Collectors.toMap(WorkedDay::getId, Function.identity()));
+
+        changes.forEach((key, change) -> {
+            WorkedDay day = days.get(key);
+            if (day == null) {
+                day = workedDayRepository.save(new WorkedDay(key));
+            }
+            day.add(change[0], (int) change[1]);
+        });
+    }
+
+}
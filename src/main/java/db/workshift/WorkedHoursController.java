@@ -0,0 +1,57 @@
+package db.workshift;
+
+import db.workshift.users.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * The hours worked per user and day for payroll, read from the WorkedDay rows, never from the shifts
+ */
+@RestController
+@RequestMapping(value = "api/users")
+public class WorkedHoursController {
+
+    private static final Logger LOG = LoggerFactory.getLogger(WorkedHoursController.class);
+
+    private final UserRepository userRepository;
+    private final WorkedHours workedHours;
+
+    WorkedHoursController(UserRepository userRepository, WorkedHours workedHours) {
+        this.userRepository = userRepository;
+        this.workedHours = workedHours;
+    }
+
+    /**
+     * the days within [from, to] the user worked, days without shifts are left out
+     */
+    @GetMapping(value = "/{id}/hours")
+    @ResponseStatus(code = HttpStatus.OK)
+    public List<WorkedDayView> workedHours(@PathVariable String id,
+                                           @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                           @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        LOG.info("workedHours, user <{}>, from <{}>, to <{}>", id, from, to);
+
+        UUID userId = UUID.fromString(id);
+        if (!userRepository.existsById(userId)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found");
+        }
+
+        return workedHours.days(userId, from, to).stream()
+                .map(WorkedDayView::of)
+                .toList();
+    }
+
+}
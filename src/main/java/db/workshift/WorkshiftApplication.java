@@ -2,8 +2,10 @@ package db.workshift;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.ImportRuntimeHints;
 
 @SpringBootApplication
+@ImportRuntimeHints(WorkshiftRuntimeHints.class)
 public class WorkshiftApplication {
 
 	public static void main(String[] args) {
@@ -1,39 +1,463 @@
 package db.workshift;
 
 import db.workshift.users.User;
+import db.workshift.users.UserRepository;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.util.stream.StreamSupport;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
 
+/**
+ * Every operation is observed as workshift.operation tagged with the operation, and the flush of its changes
+ * as workshift.flush, so the time of a request splits into the sql, the rules (see RuleMetrics) and the flush.
+ * The shifts added, assigned, unassigned and swapped are appended to the journal in the same transaction, see ShiftJournal.
+ * Shifts in other shops are looked up in, and assignments recorded with, the ScheduleDirectory, which in a
+ * partitioned deployment is on other nodes.
+ */
 @Service
 public class WorkshiftBrain {
 
+    private static final int USER_LOCK_STRIPES = 256;
+    private static final int MAXIMUM_ATTEMPTS = 5;
+    private static final long BACKOFF_MILLIS = 10;
+    private static final long MAXIMUM_BACKOFF_MILLIS = 200;
+
     private final ShopRepository shopRepository;
+    private final ShiftRepository shiftRepository;
+    private final UserRepository userRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate readOnlyTransactionTemplate;
+    private final ObservationRegistry observationRegistry;
+    private final RuleMetrics ruleMetrics;
+    private final WorkedHours workedHours;
+    private final ShiftJournal shiftJournal;
+    private final ScheduleDirectory scheduleDirectory;
+    private final UserLocks userLocks = new UserLocks(USER_LOCK_STRIPES);
+    private final RosterSolver rosterSolver = new RosterSolver(new ForkJoinPool(Runtime.getRuntime().availableProcessors()));
 
-    public WorkshiftBrain(ShopRepository shopRepository) {
+    public WorkshiftBrain(ShopRepository shopRepository,
+                          ShiftRepository shiftRepository,
+                          UserRepository userRepository,
+                          TransactionTemplate transactionTemplate,
+                          ObservationRegistry observationRegistry,
+                          RuleMetrics ruleMetrics,
+                          WorkedHours workedHours,
+                          ShiftJournal shiftJournal,
+                          ScheduleDirectory scheduleDirectory) {
         this.shopRepository = shopRepository;
+        this.shiftRepository = shiftRepository;
+        this.userRepository = userRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+        this.observationRegistry = observationRegistry;
+        this.ruleMetrics = ruleMetrics;
+        this.workedHours = workedHours;
+        this.shiftJournal = shiftJournal;
+        this.scheduleDirectory = scheduleDirectory;
+    }
+
+    /**
+     * Validates and assigns while holding the users lock, so concurrent assignments for the same user can't
+     * both pass the rules. Two users taking the same shift is caught by the shifts version and retried.
+     * The rules are evaluated without exceptions, they are only thrown here for the callers expecting them.
+     */
+    public Shift assignUserToShift(UUID shopId, UUID shiftId, UUID userId)
+            throws ShopNotFoundException, ShiftNotFoundException, UserNotFoundException, RuleViolationException {
+
+        BatchItem item;
+        try (UserLocks.Held held = userLocks.lock(List.of(userId))) {
+            item = observed("assign", shopId, () -> withRetry(() -> assign(shopId, shiftId, userId)));
+        }
+        countViolations(List.of(item));
+
+        if (item.isAccepted()) {
+            return item.shift();
+        }
+
+        if (item.violation() != null) {
+            throw item.violation().toException();
+        }
+
+        Exception rejection = item.rejection();
+        if (rejection instanceof ShopNotFoundException e) {
+            throw e;
+        } else if (rejection instanceof ShiftNotFoundException e) {
+            throw e;
+        } else if (rejection instanceof UserNotFoundException e) {
+            throw e;
+        }
+        throw new IllegalStateException(rejection);
+    }
+
+    private BatchItem assign(UUID shopId, UUID shiftId, UUID userId) {
+        try {
+            Shop shop = shopRepository.findWithShiftsById(shopId).orElseThrow(ShopNotFoundException::new);
+            shop.instrumentRules(ruleMetrics);
+            Shift shift = shop.findShift(shiftId).orElseThrow(ShiftNotFoundException::new);
+            User user = userRepository.findById(userId).orElseThrow(UserNotFoundException::new);
+
+            Optional<RuleViolation> violation = shop.assignIfAllowed(user, shift, assigned -> scheduleDirectory.hasConflictingShift(user, assigned, null));
+            if (violation.isPresent()) {
+                return BatchItem.violated(violation.get());
+            }
+            workedHours.assigned(List.of(shift));
+            shiftJournal.assigned(shopId, List.of(shift));
+            scheduleDirectory.changed(shopId, List.of(shift), Map.of());
+            return BatchItem.accepted(shift);
+        } catch (ShopNotFoundException | ShiftNotFoundException | UserNotFoundException e) {
+            return BatchItem.rejected(e);
+        }
+    }
+
+    /**
+     * Takes the shift off its assignee, it is available again. One shift less never breaks a rule, nothing is
+     * validated, no user is locked and only the shift is loaded, not the shop.
+     */
+    public Shift unassignShift(UUID shopId, UUID shiftId) throws ShopNotFoundException, ShiftNotFoundException {
+        BatchItem item = observed("unassign", shopId, () -> withRetry(() -> unassign(shopId, shiftId)));
+
+        if (item.isAccepted()) {
+            return item.shift();
+        }
+        Exception rejection = item.rejection();
+        if (rejection instanceof ShopNotFoundException e) {
+            throw e;
+        } else if (rejection instanceof ShiftNotFoundException e) {
+            throw e;
+        }
+        throw new IllegalStateException(rejection);
+    }
+
+    private BatchItem unassign(UUID shopId, UUID shiftId) {
+        try {
+            if (!shopRepository.existsById(shopId)) {
+                throw new ShopNotFoundException();
+            }
+            Shift shift = shiftRepository.findAssignedShopShift(shopId, shiftId).orElseThrow(ShiftNotFoundException::new);
+
+            User user = shift.getAssignee();
+            shift.unassign();
+            workedHours.unassigned(shift, user.getId());
+            shiftJournal.unassigned(shopId, shift, user.getId());
+            scheduleDirectory.changed(shopId, List.of(), Map.of(shift, user.getId()));
+            return BatchItem.accepted(shift);
+        } catch (ShopNotFoundException | ShiftNotFoundException e) {
+            return BatchItem.rejected(e);
+        }
     }
 
-    public Shop assignUserToShift(Shop shop, Shift shift, User user)
-            throws HoursExceededException, DaysInRowExceededException, ConflictingShiftException {
+    /**
+     * Gives each of the two assignees the others shift in one transaction, or neither of them when one would break
+     * a rule. Both assignees are locked, their current assignees are read first for it. A shift that changed hands
+     * before the transaction saw it is a concurrent change, retried with the new assignees read and locked.
+     * Only the shifts around the swapped ones are evaluated, in the shop and, for conflicts, in the other shops.
+     *
+     * @return the two shifts, with their new assignees
+     */
+    public List<Shift> swapShifts(UUID shopId, UUID firstShiftId, UUID secondShiftId)
+            throws ShopNotFoundException, ShiftNotFoundException, RuleViolationException {
+
+        List<BatchItem> items = observed("swap", shopId, () -> withLockedRetry(
+                () -> readOnlyTransactionTemplate.execute(status -> shiftRepository.findAssigneeIds(List.of(firstShiftId, secondShiftId))),
+                assigneeIds -> swap(shopId, firstShiftId, secondShiftId, assigneeIds)));
+        countViolations(items);
+
+        BatchItem item = items.get(0);
+        if (item.isAccepted()) {
+            return accepted(items);
+        }
+
+        if (item.violation() != null) {
+            throw item.violation().toException();
+        }
+
+        Exception rejection = item.rejection();
+        if (rejection instanceof ShopNotFoundException e) {
+            throw e;
+        } else if (rejection instanceof ShiftNotFoundException e) {
+            throw e;
+        } else if (rejection instanceof RuntimeException e) {
+            throw e;
+        }
+        throw new IllegalStateException(rejection);
+    }
 
-        validateNoConflictingShiftRule(shift, user);
+    /**
+     * both shifts accepted, or the one item telling why they were not swapped
+     */
+    private List<BatchItem> swap(UUID shopId, UUID firstShiftId, UUID secondShiftId, List<UUID> lockedUserIds) {
+        try {
+            Shop shop = shopRepository.findWithShiftsById(shopId).orElseThrow(ShopNotFoundException::new);
+            shop.instrumentRules(ruleMetrics);
+            Shift first = shop.findAssignedShift(firstShiftId).orElseThrow(ShiftNotFoundException::new);
+            Shift second = shop.findAssignedShift(secondShiftId).orElseThrow(ShiftNotFoundException::new);
+
+            User firstUser = first.getAssignee();
+            User secondUser = second.getAssignee();
+            if (firstUser.equals(secondUser)) {
+                return List.of(BatchItem.rejected(new IllegalArgumentException("Shifts have the same assignee")));
+            }
+            if (!lockedUserIds.contains(firstUser.getId()) || !lockedUserIds.contains(secondUser.getId())) {
+                // retried like any concurrent change, the assignees are read and locked again for it
+                throw new OptimisticLockingFailureException("Shift reassigned while swapping");
+            }
+
+            Optional<RuleViolation> violation = shop.swapIfAllowed(first, second,
+                    taken -> scheduleDirectory.hasConflictingShift(firstUser, taken, first),
+                    taken -> scheduleDirectory.hasConflictingShift(secondUser, taken, second));
+            if (violation.isPresent()) {
+                return List.of(BatchItem.violated(violation.get()));
+            }
+            workedHours.swapped(first, firstUser.getId(), second, secondUser.getId());
+            shiftJournal.swapped(shopId, first, firstUser.getId(), second, secondUser.getId());
+            scheduleDirectory.changed(shopId, List.of(first, second), Map.of(first, firstUser.getId(), second, secondUser.getId()));
+            return List.of(BatchItem.accepted(first), BatchItem.accepted(second));
+        } catch (ShopNotFoundException | ShiftNotFoundException e) {
+            return List.of(BatchItem.rejected(e));
+        }
+    }
+
+    /**
+     * Adds all the shifts in one transaction without loading the shop, the new shifts are inserted in jdbc batches
+     * and linked to the shop in one statement
+     */
+    public List<BatchItem> addShifts(UUID shopId, List<Shift> inputs) {
+        return observed("add-shifts", shopId, () -> withRetry(() -> addAll(shopId, inputs)));
+    }
+
+    private List<BatchItem> addAll(UUID shopId, List<Shift> inputs) {
+        List<BatchItem> items = new ArrayList<>(inputs.size());
+        for (Shift input : inputs) {
+            try {
+                items.add(BatchItem.accepted(Shift.create(input.getStart(), input.getDuration())));
+            } catch (IllegalArgumentException e) {
+                items.add(BatchItem.rejected(e));
+            }
+        }
+        List<Shift> added = accepted(items);
+        if (!added.isEmpty()) {
+            shiftRepository.saveAll(added);
+            shiftRepository.addToShop(shopId, added.stream().map(Shift::getId).toList());
+        }
+        shiftJournal.added(shopId, added);
+        return items;
+    }
+
+    /**
+     * Validates and assigns all the entries in one transaction, updating the hours worked of the accepted ones in one go.
+     * The users shifts in other shops are read once up front, entries accepted earlier in the batch count
+     * for the entries after them, and the changed shifts are updated in jdbc batches when it commits.
+     */
+    public List<BatchItem> assignUsersToShifts(UUID shopId, List<ShiftAssignment> assignments) {
+        try (UserLocks.Held held = userLocks.lock(assignments.stream().map(ShiftAssignment::userId).toList())) {
+            List<BatchItem> items = observed("assign-batch", shopId, () -> withRetry(() -> assignAll(shopId, assignments)));
+            countViolations(items);
+            return items;
+        }
+    }
+
+    private List<BatchItem> assignAll(UUID shopId, List<ShiftAssignment> assignments) {
+        Shop shop = shopRepository.findWithShiftsById(shopId).orElseThrow();
+        shop.instrumentRules(ruleMetrics);
+
+        Map<UUID, User> users = new HashMap<>();
+        userRepository.findAllById(assignments.stream().map(ShiftAssignment::userId).distinct().toList())
+                .forEach(user -> users.put(user.getId(), user));
+
+        List<Shift> requestedShifts = assignments.stream()
+                .map(assignment -> shop.findShift(assignment.shiftId()))
+                .flatMap(Optional::stream)
+                .toList();
+        Map<User, UserSchedule> assignedShifts = scheduleDirectory.assignedShiftsAround(requestedShifts, users.values());
+
+        List<BatchItem> items = new ArrayList<>(assignments.size());
+        for (ShiftAssignment assignment : assignments) {
+            Optional<Shift> shift = shop.findShift(assignment.shiftId());
+            User user = users.get(assignment.userId());
+            if (shift.isEmpty()) {
+                items.add(BatchItem.rejected(new ShiftNotFoundException()));
+            } else if (user == null) {
+                items.add(BatchItem.rejected(new UserNotFoundException()));
+            } else {
+                items.add(assign(shop, shift.get(), user, assignedShifts.computeIfAbsent(user, assignee -> new UserSchedule())));
+            }
+        }
+        List<Shift> assigned = accepted(items);
+        workedHours.assigned(assigned);
+        shiftJournal.assigned(shopId, assigned);
+        scheduleDirectory.changed(shopId, assigned, Map.of());
+        return items;
+    }
+
+    private static BatchItem assign(Shop shop, Shift shift, User user, UserSchedule assignedShifts) {
+        Optional<RuleViolation> violation = shop.assignIfAllowed(user, shift, overlapping(assignedShifts));
+        if (violation.isPresent()) {
+            return BatchItem.violated(violation.get());
+        }
+        assignedShifts.add(shift);
+        return BatchItem.accepted(shift);
+    }
+
+    /**
+     * Fills as many of the shops available shifts with its employees as the rules allow, see RosterSolver.
+     * All the employees are locked while solving, so no assignment made meanwhile can break the roster.
+     */
+    public Roster autoAssign(UUID shopId, Duration budget) throws ShopNotFoundException {
+        List<UUID> employeeIds = shopRepository.findWithEmployeesById(shopId).orElseThrow(ShopNotFoundException::new)
+                .getEmployees().stream().map(User::getId).toList();
+
+        try (UserLocks.Held held = userLocks.lock(employeeIds)) {
+            return observed("auto-assign", shopId, () -> withRetry(() -> autoAssignAll(shopId, employeeIds, budget)));
+        }
+    }
+
+    private Roster autoAssignAll(UUID shopId, List<UUID> employeeIds, Duration budget) {
+        Shop shop = shopRepository.findWithShiftsById(shopId).orElseThrow();
+        // employees added since the locks were taken are left out
+        List<User> employees = shop.getEmployees().stream()
+                .filter(employee -> employeeIds.contains(employee.getId()))
+                .toList();
+        Map<User, UserSchedule> assignedShifts = scheduleDirectory.assignedShiftsAround(shop.getAvailableShifts(), employees);
+
+        List<Shift> assigned = new ArrayList<>();
+        for (RosterSolver.Assignment assignment : rosterSolver.solve(shop, employees, assignedShifts, budget)) {
+            // the solver handed shifts around, in start order a shift may no longer fit, it stays open
+            if (shop.assignIfAllowed(assignment.user(), assignment.shift()).isEmpty()) {
+                assigned.add(assignment.shift());
+            }
+        }
+        workedHours.assigned(assigned);
+        shiftJournal.assigned(shopId, assigned);
+        scheduleDirectory.changed(shopId, assigned, Map.of());
+        return new Roster(assigned, shop.getAvailableShifts());
+    }
+
+    /**
+     * Evaluates every employee of the shop against all the rules for each of the shifts, nothing is assigned.
+     * The shops schedules and the employees shifts in other shops are read once and shared by all the checks.
+     * Shifts that are not available in the shop are left out.
+     */
+    public List<Eligibility> eligibility(UUID shopId, List<UUID> shiftIds) {
+        return observed("eligibility", shopId, () -> readOnlyTransactionTemplate.execute(status -> evaluateAll(shopId, shiftIds)));
+    }
+
+    private List<Eligibility> evaluateAll(UUID shopId, List<UUID> shiftIds) {
+        Shop shop = shopRepository.findWithShiftsById(shopId).orElseThrow();
+        shop.instrumentRules(ruleMetrics);
+        List<Shift> shifts = shiftIds.stream()
+                .distinct()
+                .map(shop::findShift)
+                .flatMap(Optional::stream)
+                .toList();
+        Set<User> employees = shop.getEmployees();
+        Map<User, UserSchedule> assignedShifts = scheduleDirectory.assignedShiftsAround(shifts, employees);
+
+        List<Eligibility> eligibilities = new ArrayList<>(shifts.size());
+        for (Shift shift : shifts) {
+            List<User> eligible = new ArrayList<>();
+            Map<User, RuleViolation> ineligible = new LinkedHashMap<>();
+            for (User employee : employees) {
+                UserSchedule schedule = assignedShifts.computeIfAbsent(employee, assignee -> new UserSchedule());
+                Optional<RuleViolation> violation = shop.checkRules(employee, shift, overlapping(schedule));
+                violation.ifPresentOrElse(rule -> ineligible.put(employee, rule), () -> eligible.add(employee));
+            }
+            eligibilities.add(new Eligibility(shift, eligible, ineligible));
+        }
+        return eligibilities;
+    }
+
+    private static Predicate<Shift> overlapping(UserSchedule assignedShifts) {
+        return shift -> assignedShifts.overlapSeconds(shift.getStartEpochSecond(), shift.getEndEpochSecond()) > 0;
+    }
+
+    private static List<Shift> accepted(List<BatchItem> items) {
+        return items.stream().filter(BatchItem::isAccepted).map(BatchItem::shift).toList();
+    }
+
+    /**
+     * counted once the transaction is through, not for every attempt of it
+     */
+    private void countViolations(List<BatchItem> items) {
+        for (BatchItem item : items) {
+            if (item.violation() != null) {
+                ruleMetrics.violated(item.violation());
+            }
+        }
+    }
+
+    private <T> T observed(String operation, UUID shopId, Supplier<T> work) {
+        return Observation.createNotStarted("workshift.operation", observationRegistry)
+                .lowCardinalityKeyValue("operation", operation)
+                .highCardinalityKeyValue("shop.id", shopId.toString())
+                .observe(work);
+    }
+
+    /**
+     * runs the work in its own transaction, starting over from fresh state when a concurrent change was detected.
+     * The changes are flushed before the commit, to observe the flush on its own.
+     */
+    private <T> T withRetry(Supplier<T> work) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return inTransaction(work);
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt == MAXIMUM_ATTEMPTS) {
+                    throw e;
+                }
+                backOff(attempt);
+            }
+        }
+    }
+
+    /**
+     * like withRetry, holding the locks of the users read before every attempt, a concurrent change may have changed them
+     */
+    private <T> T withLockedRetry(Supplier<List<UUID>> userIds, Function<List<UUID>, T> work) {
+        for (int attempt = 1; ; attempt++) {
+            List<UUID> lockedUserIds = userIds.get();
+            try (UserLocks.Held held = userLocks.lock(lockedUserIds)) {
+                return inTransaction(() -> work.apply(lockedUserIds));
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt == MAXIMUM_ATTEMPTS) {
+                    throw e;
+                }
+                backOff(attempt);
+            }
+        }
+    }
 
-        shop.assignUserToShift(user, shift);
-        return shopRepository.save(shop);
+    private <T> T inTransaction(Supplier<T> work) {
+        return transactionTemplate.execute(status -> {
+            T result = work.get();
+            Observation.createNotStarted("workshift.flush", observationRegistry).observe(status::flush);
+            return result;
+        });
     }
 
-    private void validateNoConflictingShiftRule(Shift shift, User user) throws ConflictingShiftException {
-        /*
-        A user can not work in multiple shops at the same time
-        */
-        boolean isAssignedConflictingShift = StreamSupport
-                .stream(shopRepository.findAll().spliterator(), false)
-                .anyMatch(shop1 -> shop1.getAssignedShifts(user)
-                        .stream()
-                        .anyMatch(shift1 -> shift1.hasOverlap(shift)));
-        if (isAssignedConflictingShift) {
-            throw new ConflictingShiftException();
+    private static void backOff(int attempt) {
+        long ceiling = Math.min(MAXIMUM_BACKOFF_MILLIS, BACKOFF_MILLIS << (attempt - 1));
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(ceiling / 2, ceiling + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while backing off", e);
         }
     }
 
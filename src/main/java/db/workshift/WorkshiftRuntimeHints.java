@@ -0,0 +1,27 @@
+package db.workshift;
+
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.TypeReference;
+
+/**
+ * What a native image needs beyond what spring aot finds itself. The entities, controllers and the types they
+ * read and write are found, the json written outside of them, to the shift feed and to other nodes, is not,
+ * nor is what hibernate loads by name from application.properties.
+ */
+class WorkshiftRuntimeHints implements RuntimeHintsRegistrar {
+
+    static final String CACHING_PROVIDER = "com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider";
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        new BindingReflectionHintsRegistrar().registerReflectionHints(hints.reflection(),
+                ShiftDelta.class, DirectoryEntry.class, ScheduleChange.class, ScheduleQuery.class);
+        hints.reflection().registerType(TypeReference.of(CACHING_PROVIDER), MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS);
+        // the cache regions, read by caffeine
+        hints.resources().registerPattern("application.conf");
+    }
+
+}
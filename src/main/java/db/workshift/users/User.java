@@ -1,23 +1,47 @@
 package db.workshift.users;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.springframework.data.domain.Persistable;
 
 import java.util.UUID;
 
+/**
+ * Users hardly ever change after they are created, so they are kept in the second level cache.
+ * The id is assigned, so the user tells the repository it is new, saving it is an insert rather than a merge
+ * selecting it first.
+ */
 @Entity
 @Table(name = "users")
-public class User {
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+public class User implements Persistable<UUID> {
 
+    /**
+     * assigned on creation, so the user can be copied to the other nodes of a partitioned deployment by id
+     */
     @Id
-    @GeneratedValue(strategy=GenerationType.UUID)
     private UUID id;
     private String name;
 
+    @Transient
+    private boolean isNew;
+
     protected User() {
     }
 
-    private User(String name) {
+    private User(UUID id, String name) {
+        this.id = id;
         this.name = name;
+        this.isNew = true;
+    }
+
+    @PostLoad
+    @PostPersist
+    void stored() {
+        isNew = false;
     }
 
     @Override
@@ -26,15 +50,29 @@ public class User {
     }
 
     public static User create(String name) {
-        return new User(name);
+        return create(UUID.randomUUID(), name);
+    }
+
+    /**
+     * a user created on another node, see UserReplication
+     */
+    public static User create(UUID id, String name) {
+        return new User(id, name);
     }
 
     public String getName() {
         return name;
     }
 
+    @Override
     public UUID getId() {
         return id;
     }
 
+    @Override
+    @JsonIgnore
+    public boolean isNew() {
+        return isNew;
+    }
+
 }
@@ -21,20 +21,24 @@ public class UserController {
      * lazy, no service layer, directly in repo
      */
     private final UserRepository userRepository;
+    private final UserReplication userReplication;
 
-    UserController(UserRepository userRepository) {
+    UserController(UserRepository userRepository, UserReplication userReplication) {
         this.userRepository = userRepository;
+        this.userReplication = userReplication;
     }
 
     @PostMapping
     @ResponseStatus(code = HttpStatus.CREATED)
     public User create(@RequestBody Map<String, String> input) {
-        LOG.info("create <%s>".formatted(input));
+        LOG.info("create <{}>", input);
 
         User user = User.create(input.get("name"));
         User persistedUser = userRepository.save(user);
+        // stored here first, the other nodes retry or replay a user they missed, see UserReplication
+        userReplication.created(persistedUser);
 
-        LOG.info("user created <%s>".formatted(persistedUser));
+        LOG.info("user created <{}>", persistedUser.getId());
         return user;
     }
 
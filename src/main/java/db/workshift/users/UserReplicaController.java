@@ -0,0 +1,45 @@
+package db.workshift.users;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Receives the users created on the other nodes of a partitioned deployment, see UserReplication.
+ * Storing the same user again changes nothing, so a replication can be retried.
+ */
+@RestController
+@RequestMapping(value = "internal/users")
+class UserReplicaController {
+
+    private static final Logger LOG = LoggerFactory.getLogger(UserReplicaController.class);
+
+    private final UserRepository userRepository;
+
+    UserReplicaController(UserRepository userRepository) {
+        this.userRepository = userRepository;
+    }
+
+    @PutMapping(value = "/{id}")
+    @ResponseStatus(code = HttpStatus.NO_CONTENT)
+    public void store(@PathVariable UUID id, @RequestBody Map<String, String> input) {
+        // a new user is inserted without a select, so look for a retried one first, from the cache mostly
+        if (userRepository.findById(id).isPresent()) {
+            LOG.debug("user already replicated <{}>", id);
+            return;
+        }
+        userRepository.save(User.create(id, input.get("name")));
+
+        LOG.info("user replicated <{}>", id);
+    }
+
+}
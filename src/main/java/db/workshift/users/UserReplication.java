@@ -0,0 +1,15 @@
+package db.workshift.users;
+
+/**
+ * Hands the users created on this node to the other nodes of a partitioned deployment, any of them can hold
+ * the shops assigning the user shifts. Called once the user is stored here, a node not reached is caught up later.
+ * On a single node there is nothing to do.
+ */
+public interface UserReplication {
+
+    UserReplication NONE = user -> {
+    };
+
+    void created(User user);
+
+}
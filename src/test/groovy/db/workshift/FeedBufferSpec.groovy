@@ -0,0 +1,76 @@
+package db.workshift
+
+import spock.lang.Specification
+
+import java.time.Duration
+import java.time.LocalDate
+import java.time.LocalDateTime
+import java.time.Month
+
+class FeedBufferSpec extends Specification {
+
+    private static final Duration SIX_HOURS = Duration.ofHours(6)
+    private static final LocalDateTime MIDNIGHT_DEC_17_2023 = LocalDate.of(2023, Month.DECEMBER, 17).atStartOfDay()
+
+    void 'keeps only the latest change of a shift, in the order of the latest changes'() {
+        given: 'a buffer'
+        FeedBuffer buffer = new FeedBuffer(4)
+        UUID first = UUID.randomUUID()
+        UUID second = UUID.randomUUID()
+        UUID userId = UUID.randomUUID()
+
+        when: 'the first shift is added, the second added and the first assigned'
+        buffer.offer(delta(ShiftDelta.Type.ADDED, first, null))
+        buffer.offer(delta(ShiftDelta.Type.ADDED, second, null))
+        buffer.offer(delta(ShiftDelta.Type.ASSIGNED, first, userId))
+        FeedBuffer.Drained drained = buffer.drain()
+
+        then: 'the second is added, then the first assigned'
+        !drained.resync()
+        drained.deltas()*.type() == [ShiftDelta.Type.ADDED, ShiftDelta.Type.ASSIGNED]
+        drained.deltas()*.shiftId() == [second, first]
+        drained.deltas()[1].assigneeId() == userId
+
+        and: 'nothing is left'
+        buffer.isEmpty()
+    }
+
+    void 'drops what is waiting and asks for a resync when full'() {
+        given: 'a full buffer'
+        FeedBuffer buffer = new FeedBuffer(2)
+        2.times { buffer.offer(delta(ShiftDelta.Type.ADDED, UUID.randomUUID(), null)) }
+
+        when: 'more changes come before it is drained'
+        buffer.offer(delta(ShiftDelta.Type.ADDED, UUID.randomUUID(), null))
+        buffer.offer(delta(ShiftDelta.Type.ADDED, UUID.randomUUID(), null))
+        FeedBuffer.Drained drained = buffer.drain()
+
+        then: 'only the resync is sent'
+        drained.resync()
+        drained.deltas().isEmpty()
+
+        and: 'changes after it are kept again'
+        buffer.offer(delta(ShiftDelta.Type.ADDED, UUID.randomUUID(), null))
+        buffer.drain().deltas().size() == 1
+    }
+
+    void 'sends one heartbeat however often it comes due before a drain'() {
+        given: 'a buffer with a heartbeat due twice'
+        FeedBuffer buffer = new FeedBuffer(2)
+        buffer.heartbeat()
+        buffer.heartbeat()
+
+        when: 'draining it twice'
+        FeedBuffer.Drained first = buffer.drain()
+        FeedBuffer.Drained second = buffer.drain()
+
+        then: 'only the first has the heartbeat'
+        first.heartbeat()
+        second.isEmpty()
+    }
+
+    private static ShiftDelta delta(ShiftDelta.Type type, UUID shiftId, UUID assigneeId) {
+        new ShiftDelta(type, shiftId, MIDNIGHT_DEC_17_2023, SIX_HOURS, assigneeId)
+    }
+
+}
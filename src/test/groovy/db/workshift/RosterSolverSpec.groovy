@@ -0,0 +1,77 @@
+package db.workshift
+
+import db.workshift.users.User
+import spock.lang.Specification
+import spock.lang.Unroll
+
+import java.time.Duration
+import java.time.LocalDate
+import java.time.LocalDateTime
+import java.time.Month
+import java.util.concurrent.ForkJoinPool
+
+@Unroll
+class RosterSolverSpec extends Specification {
+
+    private static final Duration EIGHT_HOURS = Duration.ofHours(8)
+    private static final Duration ONE_SECOND = Duration.ofSeconds(1)
+    private static final LocalDateTime MIDNIGHT_DEC_17_2023 = LocalDate.of(2023, Month.DECEMBER, 17).atStartOfDay()
+
+    private final RosterSolver solver = new RosterSolver(new ForkJoinPool(2))
+
+    void 'fills a week of shifts with #employeeCount employees as far as the rules allow'() {
+        given: 'a shop with employees and three shifts a day for a week'
+        Shop shop = weekOfShifts()
+        List<User> employees = (1..employeeCount).collect { User.create("employee $it") }
+        employees.each { shop.addUser(it) }
+
+        when: 'solving the roster'
+        List<RosterSolver.Assignment> roster = solver.solve(shop, employees, [:], ONE_SECOND)
+
+        and: 'making the assignments in the shop'
+        roster.each { shop.assignUserToShift(it.user(), it.shift()) }
+
+        then: 'the rules accept every assignment'
+        noExceptionThrown()
+
+        and: 'the expected shifts are filled'
+        roster.size() == filled
+        shop.getAvailableShifts().size() == 21 - filled
+
+        where:
+        employeeCount || filled
+        3             || 18
+        4             || 21
+    }
+
+    void 'leaves out employees working the same hours in another shop'() {
+        given: 'a shop with two employees and a shift'
+        Shop shop = Shop.create()
+        Shift shift = shop.addShift(MIDNIGHT_DEC_17_2023, EIGHT_HOURS)
+        User busy = User.create('busy')
+        User free = User.create('free')
+        shop.addUser(busy)
+        shop.addUser(free)
+
+        and: 'one of them working the same hours elsewhere'
+        UserSchedule elsewhere = new UserSchedule()
+        elsewhere.add(Shift.create(MIDNIGHT_DEC_17_2023.plusHours(4), EIGHT_HOURS))
+
+        when: 'solving the roster'
+        List<RosterSolver.Assignment> roster = solver.solve(shop, [busy, free], [(busy): elsewhere], ONE_SECOND)
+
+        then: 'the free employee gets the shift'
+        verifyAll(roster) {
+            size() == 1
+            get(0).shift().is(shift)
+            get(0).user().is(free)
+        }
+    }
+
+    private static Shop weekOfShifts() {
+        Shop shop = Shop.create()
+        (0..<21).each { shop.addShift(MIDNIGHT_DEC_17_2023.plusHours(8 * it), EIGHT_HOURS) }
+        return shop
+    }
+
+}
@@ -50,6 +50,20 @@ class ShopSpec extends Specification {
         }
     }
 
+    void 'a shift can not be longer than 24 hours'() {
+        given: 'a shop'
+        Shop shop = Shop.create()
+
+        when: 'adding a shift of 25 hours'
+        shop.addShift(DEC_17_2023_8AM, Duration.ofHours(25))
+
+        then: 'it is rejected'
+        thrown(IllegalArgumentException)
+
+        and: 'one of 24 hours is not'
+        shop.addShift(DEC_17_2023_8AM, Duration.ofHours(24))
+    }
+
     void 'add user to a shift in a shop'() {
         given: 'a shop with a user and an available shift'
         Shop shop = Shop.create()
@@ -149,6 +163,175 @@ class ShopSpec extends Specification {
         thrown(DaysInRowExceededException)
     }
 
+    void 'checking the rules tells which rule a shift would break without assigning it'() {
+        given: 'a shop with a user assigned a shift'
+        Shop shop = Shop.create()
+        shop.addUser(USER_BENT)
+        addShifts(shop, MIDNIGHT_DEC_17_2023, Duration.ofHours(72), EIGHT_HOURS)
+        List<Shift> shifts = shop.getAvailableShifts()
+        shop.assignUserToShift(USER_BENT, shifts.get(0))
+
+        expect: 'the next shift breaks the 24 hour rule, the next day is fine'
+        shop.checkRules(USER_BENT, shifts.get(1)) == Optional.of(RuleViolation.HOURS_EXCEEDED)
+        shop.checkRules(USER_BENT, shifts.get(3)) == Optional.empty()
+
+        and: 'nothing more was assigned'
+        shop.getAvailableShifts().size() == 8
+    }
+
+    void 'assigning if allowed returns the broken rule instead of throwing'() {
+        given: 'a shop with a user assigned a shift'
+        Shop shop = Shop.create()
+        shop.addUser(USER_BENT)
+        addShifts(shop, MIDNIGHT_DEC_17_2023, Duration.ofHours(72), EIGHT_HOURS)
+        List<Shift> shifts = shop.getAvailableShifts()
+        shop.assignUserToShift(USER_BENT, shifts.get(0))
+
+        when: 'assigning a shift in the same 24 hour window'
+        Optional<RuleViolation> violation = shop.assignIfAllowed(USER_BENT, shifts.get(1))
+
+        then: 'the rule is returned and nothing is assigned'
+        violation == Optional.of(RuleViolation.HOURS_EXCEEDED)
+        shop.getAssignedShifts(USER_BENT).size() == 1
+
+        when: 'assigning a shift the next day'
+        violation = shop.assignIfAllowed(USER_BENT, shifts.get(3))
+
+        then: 'it is assigned'
+        violation == Optional.empty()
+        shop.getAssignedShifts(USER_BENT).size() == 2
+    }
+
+    void 'a shop can set its own limits and add rules'() {
+        given: 'a shop allowing 16 hours a day but requiring 8 hours of rest'
+        Shop shop = Shop.create()
+        shop.setRules(new ShopRules(24, 16, 5, 8, null))
+        shop.addUser(USER_BENT)
+        addShifts(shop, MIDNIGHT_DEC_17_2023, Duration.ofHours(72), EIGHT_HOURS)
+        List<Shift> shifts = shop.getAvailableShifts()
+        shop.assignUserToShift(USER_BENT, shifts.get(0))
+
+        expect: 'the next shift has no rest before it, the one after does'
+        shop.checkRules(USER_BENT, shifts.get(1)) == Optional.of(RuleViolation.REST_TOO_SHORT)
+        shop.checkRules(USER_BENT, shifts.get(2)) == Optional.empty()
+
+        when: 'taking it with the throwing api'
+        shop.assignUserToShift(USER_BENT, shifts.get(1))
+
+        then: 'the rule is in the exception'
+        RuleViolationException e = thrown()
+        e.violation == RuleViolation.REST_TOO_SHORT
+    }
+
+    void 'only the default 24 hour window gives the 24 hour reason'() {
+        given: 'a shop counting 8 hours within 12 and one with the default rules'
+        Shop configured = Shop.create()
+        configured.setRules(new ShopRules(12, 8, 5, null, null))
+        Shop standard = Shop.create()
+        [configured, standard].each { shop ->
+            shop.addUser(USER_BENT)
+            addShifts(shop, MIDNIGHT_DEC_17_2023, Duration.ofHours(24), EIGHT_HOURS)
+            shop.assignUserToShift(USER_BENT, shop.getAvailableShifts().get(0))
+        }
+
+        expect:
+        configured.checkRules(USER_BENT, configured.getAvailableShifts().get(0)).get().reason == 'Hours exceeded within window'
+        standard.checkRules(USER_BENT, standard.getAvailableShifts().get(0)).get().reason == 'Hours exceeded within 24 hour window'
+    }
+
+    void 'the weekly limit counts the hours of 7 days, not of shifts 8 days apart'() {
+        given: 'a shop allowing 16 hours a week, a user working the 17th and the 25th'
+        Shop shop = Shop.create()
+        shop.setRules(new ShopRules(24, 8, 5, null, 16))
+        shop.addUser(USER_BENT)
+        Shift first = shop.addShift(DEC_17_2023_8AM, EIGHT_HOURS)
+        Shift eightDaysLater = shop.addShift(DEC_17_2023_8AM.plusDays(8), EIGHT_HOURS)
+        Shift between = shop.addShift(DEC_17_2023_8AM.plusDays(4), EIGHT_HOURS)
+        Shift twoDaysLater = shop.addShift(DEC_17_2023_8AM.plusDays(2), EIGHT_HOURS)
+        shop.assignUserToShift(USER_BENT, first)
+        shop.assignUserToShift(USER_BENT, eightDaysLater)
+
+        expect: 'the shift between them is within a week of each, but they are not within a week of each other'
+        shop.checkRules(USER_BENT, between) == Optional.empty()
+
+        when: 'taking it'
+        shop.assignUserToShift(USER_BENT, between)
+
+        then: 'a third shift within the same 7 days is too much'
+        shop.checkRules(USER_BENT, twoDaysLater) == Optional.of(RuleViolation.WEEKLY_HOURS_EXCEEDED)
+    }
+
+    void 'the weekly limit counts the 7 days around a shift, not only those ending or starting with it'() {
+        given: 'a shop allowing 16 hours a week, a user working the 17th and the 23rd'
+        Shop shop = Shop.create()
+        shop.setRules(new ShopRules(24, 8, 5, null, 16))
+        shop.addUser(USER_BENT)
+        shop.assignUserToShift(USER_BENT, shop.addShift(DEC_17_2023_8AM, EIGHT_HOURS))
+        shop.assignUserToShift(USER_BENT, shop.addShift(DEC_17_2023_8AM.plusDays(6), EIGHT_HOURS))
+        Shift between = shop.addShift(DEC_17_2023_8AM.plusDays(3), EIGHT_HOURS)
+
+        expect: 'the 7 days from the 17th would hold 24 hours with the shift between them'
+        shop.checkRules(USER_BENT, between) == Optional.of(RuleViolation.WEEKLY_HOURS_EXCEEDED)
+    }
+
+    void 'unassigning a shift makes it available again and frees the user for it'() {
+        given: 'a shop with a user assigned a shift'
+        Shop shop = Shop.create()
+        shop.addUser(USER_BENT)
+        addShifts(shop, MIDNIGHT_DEC_17_2023, Duration.ofHours(72), EIGHT_HOURS)
+        List<Shift> shifts = shop.getAvailableShifts()
+        shop.assignUserToShift(USER_BENT, shifts.get(0))
+
+        when: 'unassigning it'
+        User user = shop.unassign(shifts.get(0))
+
+        then: 'it is available and the shift next to it can be taken'
+        user == USER_BENT
+        shop.findShift(shifts.get(0).id).isPresent()
+        shop.getAvailableShifts().size() == 9
+        shop.checkRules(USER_BENT, shifts.get(1)) == Optional.empty()
+    }
+
+    void 'swapping gives each user the others shift only if both keep to the rules'() {
+        given: 'Bent on the first night, Lis on the next morning and the morning after'
+        User lis = User.create('Lis Hansen')
+        Shop shop = Shop.create()
+        shop.addUser(USER_BENT)
+        shop.addUser(lis)
+        addShifts(shop, MIDNIGHT_DEC_17_2023, Duration.ofHours(72), EIGHT_HOURS)
+        List<Shift> shifts = shop.getAvailableShifts()
+        shop.assignUserToShift(USER_BENT, shifts.get(0))
+        shop.assignUserToShift(lis, shifts.get(1))
+        shop.assignUserToShift(lis, shifts.get(4))
+
+        when: 'Lis would take the night right before her morning'
+        Optional<RuleViolation> violation = shop.swapIfAllowed(shifts.get(0), shifts.get(4))
+
+        then: 'the rule is returned and nothing is swapped'
+        violation == Optional.of(RuleViolation.HOURS_EXCEEDED)
+        shop.getAssignedShifts(USER_BENT) == [shifts.get(0)]
+        shop.getAssignedShifts(lis) == [shifts.get(1), shifts.get(4)]
+
+        when: 'swapping the night for the morning next to it'
+        violation = shop.swapIfAllowed(shifts.get(0), shifts.get(1))
+
+        then: 'both have the others shift'
+        violation == Optional.empty()
+        shop.getAssignedShifts(USER_BENT) == [shifts.get(1)]
+        shop.getAssignedShifts(lis) == [shifts.get(0), shifts.get(4)]
+        shifts.get(0).isAssignedTo(lis)
+        shifts.get(1).isAssignedTo(USER_BENT)
+    }
+
+    void 'a shop prints ids and counts, not its shifts'() {
+        given: 'a shop with a user and a day of shifts'
+        Shop shop = addShifts(Shop.create(), MIDNIGHT_DEC_17_2023, Duration.ofHours(24), EIGHT_HOURS)
+        shop.addUser(USER_BENT)
+
+        expect:
+        shop.toString() == "Shop[id=${shop.id}, employees=1, shifts=3]"
+    }
+
     private static Shop addShifts(
             Shop shop,
             LocalDateTime start,
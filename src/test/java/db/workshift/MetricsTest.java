@@ -0,0 +1,71 @@
+package db.workshift;
+
+import db.workshift.users.User;
+import db.workshift.users.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The rule, operation and statement metrics of an assign request show up in the prometheus scrape
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+class MetricsTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    ShopRepository shopRepository;
+
+    @Autowired
+    UserRepository userRepository;
+
+    @Test
+    public void assignUserToShiftConflicting() throws Exception {
+        LocalDateTime start = LocalDateTime.now().plusHours(2);
+        User user = userRepository.save(User.create("Bent Jørgensen"));
+        Shop shop = Shop.create();
+        Shift shift = shop.addShift(start, Duration.ofHours(6));
+        shop = shopRepository.save(shop);
+        Shop elsewhere = Shop.create();
+        elsewhere.assignUserToShift(user, elsewhere.addShift(start, Duration.ofHours(6)));
+        shopRepository.save(elsewhere);
+
+        mockMvc.perform(MockMvcRequestBuilders.put("/api/shops/%s/shift/%s/assign/%s"
+                        .formatted(shop.getId(), shift.getId(), user.getId())))
+                .andExpect(MockMvcResultMatchers.status().isUnprocessableEntity());
+
+        List<String> scrape = mockMvc.perform(MockMvcRequestBuilders.get("/actuator/prometheus"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andReturn().getResponse().getContentAsString()
+                .lines()
+                .toList();
+
+        assertScraped(scrape, "workshift_rule_violations_total", "rule=\"conflicting_shift\"");
+        assertScraped(scrape, "workshift_rule_evaluation_seconds_count", "rule=\"hours_exceeded\"");
+        assertScraped(scrape, "workshift_rule_shifts_scanned_count");
+        assertScraped(scrape, "workshift_operation_seconds_count", "operation=\"assign\"");
+        assertScraped(scrape, "workshift_flush_seconds_count");
+        assertScraped(scrape, "workshift_http_statements_count", "uri=\"/api/shops/{id}/shift/{shiftId}/assign/{userId}\"");
+    }
+
+    private static void assertScraped(List<String> scrape, String metric, String... tags) {
+        assertTrue(scrape.stream().anyMatch(line -> line.startsWith(metric) && List.of(tags).stream().allMatch(line::contains)),
+                "%s %s not scraped".formatted(metric, List.of(tags)));
+    }
+
+}
@@ -0,0 +1,163 @@
+package db.workshift;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Two nodes in this jvm, each with a file based h2 database of its own and half of the shops
+ */
+class PartitionedDeploymentTest {
+
+    private static final Duration SIX_HOURS = Duration.ofHours(6);
+    private static final String SECRET = "partition-test-secret";
+
+    @TempDir
+    static Path databases;
+
+    private static final HttpClient httpClient = HttpClient.newHttpClient();
+    private static final List<ConfigurableApplicationContext> nodes = new ArrayList<>();
+    private static final List<String> urls = new ArrayList<>();
+    private static ObjectMapper objectMapper;
+
+    @BeforeAll
+    static void startNodes() throws IOException {
+        for (int index = 0; index < 2; index++) {
+            urls.add("http://localhost:" + freePort());
+        }
+        for (int index = 0; index < urls.size(); index++) {
+            nodes.add(SpringApplication.run(WorkshiftApplication.class,
+                    "--server.port=" + URI.create(urls.get(index)).getPort(),
+                    "--workshift.partition.nodes=" + String.join(",", urls),
+                    "--workshift.partition.index=" + index,
+                    "--workshift.partition.secret=" + SECRET,
+                    "--spring.datasource.url=jdbc:h2:file:" + databases.resolve("node" + index),
+                    "--spring.jpa.hibernate.ddl-auto=create-drop",
+                    // the caching provider is one per jvm, the nodes would share their caches
+                    "--spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+                    "--logging.level.root=WARN"));
+        }
+        objectMapper = nodes.get(0).getBean(ObjectMapper.class);
+    }
+
+    @AfterAll
+    static void stopNodes() {
+        nodes.forEach(ConfigurableApplicationContext::close);
+    }
+
+    @Test
+    public void shopsAreServedByTheirOwnerFromEveryNode() throws Exception {
+        UUID shopId = createShop(0);
+
+        HttpResponse<String> shifts = send(1, "GET", "/api/shops/%s/shifts".formatted(shopId), null);
+
+        assertEquals(200, shifts.statusCode());
+        assertEquals(0, objectMapper.readTree(shifts.body()).get("shifts").size());
+    }
+
+    @Test
+    public void streamsAreRedirectedToTheOwner() throws Exception {
+        UUID shopId = createShop(0);
+
+        for (String path : List.of("/api/shops/%s/shifts/export?format=csv", "/api/shops/%s/shifts/stream")) {
+            HttpResponse<String> response = send(1, "GET", path.formatted(shopId), null);
+
+            assertEquals(307, response.statusCode());
+            assertEquals(urls.get(0) + path.formatted(shopId), response.headers().firstValue("Location").orElseThrow());
+        }
+    }
+
+    @Test
+    public void aUserCanNotWorkInShopsOfDifferentPartitionsAtOnce() throws Exception {
+        UUID userId = createUser(0);
+        UUID firstShop = createShop(0);
+        UUID secondShop = createShop(1);
+        LocalDateTime start = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.HOURS);
+        // each added through the node not owning the shop
+        UUID firstShift = addShift(1, firstShop, start);
+        UUID secondShift = addShift(0, secondShop, start.plusHours(2));
+
+        assertEquals(200, assign(0, firstShop, firstShift, userId).statusCode());
+        // node 1 knows nothing of the first shop, the home node of the user does
+        assertEquals(422, assign(1, secondShop, secondShift, userId).statusCode());
+
+        assertEquals(200, send(0, "PUT", "/api/shops/%s/shift/%s/unassign".formatted(firstShop, firstShift), null).statusCode());
+        assertEquals(200, assign(1, secondShop, secondShift, userId).statusCode());
+    }
+
+    @Test
+    public void internalPathsRequireThePartitionSecret() throws Exception {
+        String path = "/internal/users/" + UUID.randomUUID();
+
+        assertEquals(403, send(0, "PUT", path, "{\"name\":\"Mallory\"}").statusCode());
+        assertEquals(403, send(0, "PUT", path, "{\"name\":\"Mallory\"}", "not-the-secret").statusCode());
+        assertEquals(204, send(0, "PUT", path, "{\"name\":\"Bent Jørgensen\"}", SECRET).statusCode());
+        // a retried replication
+        assertEquals(204, send(0, "PUT", path, "{\"name\":\"Bent Jørgensen\"}", SECRET).statusCode());
+    }
+
+    private static UUID createUser(int node) throws Exception {
+        HttpResponse<String> response = send(node, "POST", "/api/users", "{\"name\":\"Bent Jørgensen\"}");
+        assertEquals(201, response.statusCode());
+        return UUID.fromString(objectMapper.readTree(response.body()).get("id").asText());
+    }
+
+    private static UUID createShop(int node) throws Exception {
+        HttpResponse<String> response = send(node, "POST", "/api/shops", "{\"name\":\"Kalles Kiosk\"}");
+        assertEquals(201, response.statusCode());
+        return UUID.fromString(objectMapper.readTree(response.body()).get("id").asText());
+    }
+
+    private static UUID addShift(int node, UUID shopId, LocalDateTime start) throws Exception {
+        HttpResponse<String> response = send(node, "POST", "/api/shops/%s/shift".formatted(shopId),
+                objectMapper.writeValueAsString(Shift.create(start, SIX_HOURS)));
+        assertEquals(201, response.statusCode());
+        return UUID.fromString(objectMapper.readTree(response.body()).get("id").asText());
+    }
+
+    private static HttpResponse<String> assign(int node, UUID shopId, UUID shiftId, UUID userId) throws Exception {
+        return send(node, "PUT", "/api/shops/%s/shift/%s/assign/%s".formatted(shopId, shiftId, userId), null);
+    }
+
+    private static HttpResponse<String> send(int node, String method, String path, String json) throws Exception {
+        return send(node, method, path, json, null);
+    }
+
+    private static HttpResponse<String> send(int node, String method, String path, String json, String secret) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder()
+                .uri(URI.create(urls.get(node) + path))
+                .header("Content-Type", "application/json")
+                .method(method, json != null ? HttpRequest.BodyPublishers.ofString(json) : HttpRequest.BodyPublishers.noBody());
+        if (secret != null) {
+            request.header(InternalEndpointInterceptor.SECRET_HEADER, secret);
+        }
+        return httpClient.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+}
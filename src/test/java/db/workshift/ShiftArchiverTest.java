@@ -0,0 +1,65 @@
+package db.workshift;
+
+import db.workshift.users.User;
+import db.workshift.users.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultHandlers;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class ShiftArchiverTest {
+
+    private static final LocalDateTime MIDNIGHT_JAN_1_2020 = LocalDate.of(2020, 1, 1).atStartOfDay();
+    private static final Duration EIGHT_HOURS = Duration.ofHours(8);
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    ShiftArchiver shiftArchiver;
+
+    @Autowired
+    ShopRepository shopRepository;
+
+    @Autowired
+    UserRepository userRepository;
+
+    @Test
+    public void archivedShiftsLeaveTheShopAndShowInHistory() throws Exception {
+        User user = userRepository.save(User.create("Bent Jørgensen"));
+        Shop shop = Shop.create();
+        shop.assignUserToShift(user, shop.addShift(MIDNIGHT_JAN_1_2020, EIGHT_HOURS));
+        shop.addShift(MIDNIGHT_JAN_1_2020.plusDays(1), EIGHT_HOURS);
+        Shift recent = shop.addShift(LocalDateTime.now().plusHours(2), EIGHT_HOURS);
+        shop = shopRepository.save(shop);
+
+        shiftArchiver.archiveEndingBefore(MIDNIGHT_JAN_1_2020.plusDays(7));
+
+        Shop archived = shopRepository.findWithShiftsById(shop.getId()).orElseThrow();
+        assertEquals(1, archived.getAvailableShifts().size());
+        assertEquals(recent.getId(), archived.getAvailableShifts().get(0).getId());
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/shops/%s/shifts/history".formatted(shop.getId()))
+                        .param("from", MIDNIGHT_JAN_1_2020.toString())
+                        .param("to", MIDNIGHT_JAN_1_2020.plusDays(7).toString()))
+                .andDo(MockMvcResultHandlers.print())
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.shifts.length()").value(2))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.shifts[0].assigneeId").value(user.getId().toString()))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.shifts[1].assigneeId").isEmpty())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.next").isEmpty());
+    }
+
+}
@@ -0,0 +1,93 @@
+package db.workshift;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ShiftFeedTest {
+
+    private static final int SENDERS = 2;
+
+    private final ShiftFeed shiftFeed = new ShiftFeed(new SimpleMeterRegistry(), SENDERS,
+            Duration.ofMinutes(30), Duration.ofMillis(100), 16);
+    private final CountDownLatch unblock = new CountDownLatch(1);
+
+    @AfterEach
+    public void close() {
+        unblock.countDown();
+        shiftFeed.close();
+    }
+
+    @Test
+    public void clientsNotReadingAreDroppedWithoutHoldingUpTheOthers() throws Exception {
+        UUID shopId = UUID.randomUUID();
+        for (int stalled = 0; stalled < SENDERS * 2; stalled++) {
+            shiftFeed.subscribe(shopId, new BlockingEmitter());
+        }
+        RecordingEmitter reading = new RecordingEmitter();
+        shiftFeed.subscribe(shopId, reading);
+
+        shiftFeed.publish(shopId, List.of(added()));
+
+        // the senders block on the stalled, each dropped one frees a sender for the next
+        long deadline = System.currentTimeMillis() + 5_000;
+        while ((reading.sent.getCount() > 0 || shiftFeed.subscriberCount() > 1) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(150);
+            shiftFeed.dropStalled();
+        }
+        assertEquals(0, reading.sent.getCount());
+        assertEquals(1, shiftFeed.subscriberCount());
+    }
+
+    @Test
+    public void heartbeatsAreWrittenByTheSenders() throws Exception {
+        RecordingEmitter reading = new RecordingEmitter();
+        shiftFeed.subscribe(UUID.randomUUID(), reading);
+
+        shiftFeed.heartbeat();
+
+        assertTrue(reading.sent.await(5, TimeUnit.SECONDS));
+        assertNotSame(Thread.currentThread(), reading.sendingThread);
+    }
+
+    private static ShiftDelta added() {
+        return new ShiftDelta(ShiftDelta.Type.ADDED, UUID.randomUUID(), LocalDateTime.now(), Duration.ofHours(6), null);
+    }
+
+    private class BlockingEmitter extends SseEmitter {
+
+        @Override
+        public void send(SseEventBuilder builder) {
+            try {
+                unblock.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static class RecordingEmitter extends SseEmitter {
+
+        private final CountDownLatch sent = new CountDownLatch(1);
+        private volatile Thread sendingThread;
+
+        @Override
+        public void send(SseEventBuilder builder) {
+            sendingThread = Thread.currentThread();
+            sent.countDown();
+        }
+    }
+
+}
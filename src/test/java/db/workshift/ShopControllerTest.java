@@ -10,6 +10,7 @@ import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMock
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.ResultActions;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.result.MockMvcResultHandlers;
@@ -17,9 +18,12 @@ import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @SpringBootTest
 @AutoConfigureMockMvc
@@ -59,6 +63,13 @@ class ShopControllerTest {
         return shopRepository.save(shop);
     }
 
+    private void assign(Shift shift, User user) throws Exception {
+        mockMvc.perform(
+                        MockMvcRequestBuilders.put("/api/shops/%s/shift/%s/assign/%s".formatted(shop1.getId(), shift.getId(), user.getId()))
+                                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+    }
+
     @Test
     public void createShop() throws Exception {
         ResultActions resultActions = mockMvc.perform(
@@ -126,4 +137,289 @@ class ShopControllerTest {
         ;
     }
 
+    @Test
+    public void unassignShift() throws Exception {
+        assign(shift, user1);
+
+        mockMvc.perform(
+                        MockMvcRequestBuilders.put("/api/shops/%s/shift/%s/unassign".formatted(shop1.getId(), shift.getId()))
+                                .contentType(MediaType.APPLICATION_JSON))
+                .andDo(MockMvcResultHandlers.print())
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.assigneeId").isEmpty());
+
+        mockMvc.perform(
+                        MockMvcRequestBuilders.put("/api/shops/%s/shift/%s/unassign".formatted(shop1.getId(), shift.getId()))
+                                .contentType(MediaType.APPLICATION_JSON))
+                .andDo(MockMvcResultHandlers.print())
+                .andExpect(MockMvcResultMatchers.status().isNotFound());
+    }
+
+    @Test
+    public void swapShifts() throws Exception {
+        Shift first = shop1.addShift(LocalDateTime.now().plusHours(30), Duration.ofHours(6));
+        Shift second = shop1.addShift(LocalDateTime.now().plusHours(60), Duration.ofHours(6));
+        shop1 = shopRepository.save(shop1);
+        assign(first, user1);
+        assign(second, user2);
+
+        mockMvc.perform(
+                        MockMvcRequestBuilders.put("/api/shops/%s/shifts/swap".formatted(shop1.getId()))
+                                .content(objectMapper.writeValueAsString(new ShiftSwap(first.getId(), second.getId())))
+                                .contentType(MediaType.APPLICATION_JSON))
+                .andDo(MockMvcResultHandlers.print())
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].assigneeId").value(user2.getId().toString()))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[1].assigneeId").value(user1.getId().toString()));
+    }
+
+    @Test
+    public void swapShiftsConflicting() throws Exception {
+        Shift other = shop1.addShift(LocalDateTime.now().plusHours(30), Duration.ofHours(6));
+        shop1 = shopRepository.save(shop1);
+        assign(shift, user1);
+        assign(other, user2);
+
+        // user2 works the hours of shift in the other shop
+        mockMvc.perform(
+                        MockMvcRequestBuilders.put("/api/shops/%s/shifts/swap".formatted(shop1.getId()))
+                                .content(objectMapper.writeValueAsString(new ShiftSwap(shift.getId(), other.getId())))
+                                .contentType(MediaType.APPLICATION_JSON))
+                .andDo(MockMvcResultHandlers.print())
+                .andExpect(MockMvcResultMatchers.status().isUnprocessableEntity())
+                .andExpect(result -> assertEquals("Conflicting shift detected", result.getResponse().getErrorMessage()));
+    }
+
+    @Test
+    public void listShifts() throws Exception {
+        mockMvc.perform(
+                        MockMvcRequestBuilders.get("/api/shops/%s/shifts".formatted(shop1.getId()))
+                                .param("from", LocalDateTime.now().toString())
+                                .param("to", LocalDateTime.now().plusDays(1).toString())
+                                .contentType(MediaType.APPLICATION_JSON))
+                .andDo(MockMvcResultHandlers.print())
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.shifts.length()").value(1))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.shifts[0].id").value(shift.getId().toString()))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.next").isEmpty());
+    }
+
+    @Test
+    public void listAssignedShifts() throws Exception {
+        mockMvc.perform(
+                        MockMvcRequestBuilders.get("/api/shops/%s/shifts".formatted(shop1.getId()))
+                                .param("assigned", "true")
+                                .contentType(MediaType.APPLICATION_JSON))
+                .andDo(MockMvcResultHandlers.print())
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.shifts.length()").value(0));
+    }
+
+    @Test
+    public void listShiftsPageByPage() throws Exception {
+        Shop shop = Shop.create();
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        shop.addShift(start, Duration.ofHours(8));
+        shop.addShift(start.plusHours(8), Duration.ofHours(8));
+        shop.addShift(start.plusHours(16), Duration.ofHours(8));
+        shop = shopRepository.save(shop);
+
+        String firstPage = mockMvc.perform(
+                        MockMvcRequestBuilders.get("/api/shops/%s/shifts".formatted(shop.getId()))
+                                .param("size", "2")
+                                .contentType(MediaType.APPLICATION_JSON))
+                .andDo(MockMvcResultHandlers.print())
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.shifts.length()").value(2))
+                .andReturn().getResponse().getContentAsString();
+
+        String next = objectMapper.readTree(firstPage).get("next").asText();
+        mockMvc.perform(
+                        MockMvcRequestBuilders.get("/api/shops/%s/shifts".formatted(shop.getId()))
+                                .param("size", "2")
+                                .param("after", next)
+                                .contentType(MediaType.APPLICATION_JSON))
+                .andDo(MockMvcResultHandlers.print())
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.shifts.length()").value(1))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.next").isEmpty());
+    }
+
+    @Test
+    public void addShifts() throws Exception {
+        Shift shift = Shift.create(LocalDateTime.now().plusHours(10), Duration.ofHours(8));
+        mockMvc.perform(
+                        MockMvcRequestBuilders.post("/api/shops/%s/shifts".formatted(shop1.getId()))
+                                .content("[%s, {\"duration\": 3600}]".formatted(objectMapper.writeValueAsString(shift)))
+                                .contentType(MediaType.APPLICATION_JSON))
+                .andDo(MockMvcResultHandlers.print())
+                .andExpect(MockMvcResultMatchers.status().isCreated())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.length()").value(2))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].shift.id").isNotEmpty())
+                .andExpect(MockMvcResultMatchers.jsonPath("$[1].error").value("start cannot be null"));
+    }
+
+    @Test
+    public void assignUsersToShifts() throws Exception {
+        ShiftAssignment assignment = new ShiftAssignment(shift.getId(), user1.getId());
+        ShiftAssignment unknownShift = new ShiftAssignment(UUID.randomUUID(), user1.getId());
+        mockMvc.perform(
+                        MockMvcRequestBuilders.put("/api/shops/%s/shifts/assignments".formatted(shop1.getId()))
+                                .content(objectMapper.writeValueAsString(List.of(assignment, unknownShift)))
+                                .contentType(MediaType.APPLICATION_JSON))
+                .andDo(MockMvcResultHandlers.print())
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].shift.assigneeId").value(user1.getId().toString()))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[1].error").value("Shift not found"));
+    }
+
+    @Test
+    public void autoAssign() throws Exception {
+        shop1.addUser(user1);
+        shop1.addUser(user2);
+        shop1 = shopRepository.save(shop1);
+
+        mockMvc.perform(
+                        MockMvcRequestBuilders.put("/api/shops/%s/shifts/auto-assign".formatted(shop1.getId()))
+                                .param("budgetMillis", "500")
+                                .contentType(MediaType.APPLICATION_JSON))
+                .andDo(MockMvcResultHandlers.print())
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                // user2 works the same hours in the other shop
+                .andExpect(MockMvcResultMatchers.jsonPath("$.assigned[0].assigneeId").value(user1.getId().toString()))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.unassigned").isEmpty());
+    }
+
+    @Test
+    public void eligibility() throws Exception {
+        shop1.addUser(user1);
+        shop1.addUser(user2);
+        shop1 = shopRepository.save(shop1);
+
+        mockMvc.perform(
+                        MockMvcRequestBuilders.get("/api/shops/%s/shifts/eligibility".formatted(shop1.getId()))
+                                .param("shiftId", shift.getId().toString()))
+                .andDo(MockMvcResultHandlers.print())
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].shiftId").value(shift.getId().toString()))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].eligible[0]").value(user1.getId().toString()))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].ineligible[0].userId").value(user2.getId().toString()))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].ineligible[0].reason").value("Conflicting shift detected"));
+    }
+
+    @Test
+    public void eligibilityOfUnknownShift() throws Exception {
+        mockMvc.perform(
+                        MockMvcRequestBuilders.get("/api/shops/%s/shifts/eligibility".formatted(shop1.getId()))
+                                .param("shiftId", UUID.randomUUID().toString()))
+                .andDo(MockMvcResultHandlers.print())
+                .andExpect(MockMvcResultMatchers.status().isNotFound());
+    }
+
+    @Test
+    public void internalPathsDoNotExistOnASingleNode() throws Exception {
+        mockMvc.perform(
+                        MockMvcRequestBuilders.put("/internal/users/%s".formatted(UUID.randomUUID()))
+                                .content("{\"name\": \"Mallory\"}")
+                                .contentType(MediaType.APPLICATION_JSON))
+                .andDo(MockMvcResultHandlers.print())
+                .andExpect(MockMvcResultMatchers.status().isNotFound());
+    }
+
+    @Test
+    public void setRules() throws Exception {
+        ShopRules rules = new ShopRules(24, 10, 4, 11, 40);
+        mockMvc.perform(
+                        MockMvcRequestBuilders.put("/api/shops/%s/rules".formatted(shop1.getId()))
+                                .content(objectMapper.writeValueAsString(rules))
+                                .contentType(MediaType.APPLICATION_JSON))
+                .andDo(MockMvcResultHandlers.print())
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.maximumHoursInWindow").value(10))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.minimumRestHours").value(11));
+
+        assertEquals(rules, shopRepository.findById(shop1.getId()).orElseThrow().getRules());
+    }
+
+    @Test
+    public void setInvalidRules() throws Exception {
+        mockMvc.perform(
+                        MockMvcRequestBuilders.put("/api/shops/%s/rules".formatted(shop1.getId()))
+                                .content("{\"windowHours\": 24, \"maximumHoursInWindow\": 0, \"maximumDaysInRow\": 5}")
+                                .contentType(MediaType.APPLICATION_JSON))
+                .andDo(MockMvcResultHandlers.print())
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
+    }
+
+    @Test
+    public void exportShifts() throws Exception {
+        shop1.addShift(LocalDateTime.now().plusDays(1), Duration.ofHours(6));
+        shopRepository.save(shop1);
+
+        MvcResult export = mockMvc.perform(
+                        MockMvcRequestBuilders.get("/api/shops/%s/shifts/export".formatted(shop1.getId())))
+                .andExpect(MockMvcResultMatchers.request().asyncStarted())
+                .andReturn();
+
+        String body = mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(export))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.content().contentType("application/x-ndjson"))
+                .andReturn().getResponse().getContentAsString();
+
+        List<String> lines = body.lines().toList();
+        assertEquals(2, lines.size());
+        assertEquals(shift.getId(), objectMapper.readValue(lines.get(0), ShiftView.class).id());
+    }
+
+    @Test
+    public void exportAssignedShiftsAsCsv() throws Exception {
+        shop1.assignUserToShift(user1, shift);
+        shop1.addShift(LocalDateTime.now().plusDays(1), Duration.ofHours(6));
+        shopRepository.save(shop1);
+
+        MvcResult export = mockMvc.perform(
+                        MockMvcRequestBuilders.get("/api/shops/%s/shifts/export".formatted(shop1.getId()))
+                                .param("assigneeId", user1.getId().toString())
+                                .param("format", "csv"))
+                .andExpect(MockMvcResultMatchers.request().asyncStarted())
+                .andReturn();
+
+        String body = mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(export))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        List<String> lines = body.lines().toList();
+        assertEquals(2, lines.size());
+        assertEquals("id,start,duration,assigneeId", lines.get(0));
+        assertTrue(lines.get(1).startsWith(shift.getId() + ","));
+        assertTrue(lines.get(1).endsWith("," + shift.getDuration() + "," + user1.getId()));
+    }
+
+    @Test
+    public void streamAddedShifts() throws Exception {
+        MvcResult stream = mockMvc.perform(
+                        MockMvcRequestBuilders.get("/api/shops/%s/shifts/stream".formatted(shop1.getId()))
+                                .accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(MockMvcResultMatchers.request().asyncStarted())
+                .andReturn();
+
+        String added = mockMvc.perform(
+                        MockMvcRequestBuilders.post("/api/shops/%s/shift".formatted(shop1.getId()))
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(objectMapper.writeValueAsString(Shift.create(LocalDateTime.now().plusDays(2), Duration.ofHours(6)))))
+                .andExpect(MockMvcResultMatchers.status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        UUID shiftId = objectMapper.readValue(added, ShiftView.class).id();
+
+        // sent by the feeds own threads
+        long deadline = System.currentTimeMillis() + 5_000;
+        String events = stream.getResponse().getContentAsString();
+        while (!events.contains("event:shift-added") && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+            events = stream.getResponse().getContentAsString();
+        }
+        assertTrue(events.contains("event:shift-added"), events);
+        assertTrue(events.contains("id:" + shiftId), events);
+    }
+
 }
@@ -0,0 +1,134 @@
+package db.workshift;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import db.workshift.users.User;
+import db.workshift.users.UserRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultHandlers;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The summary follows the journal once projected, the scheduled projector is held off so the test projects itself
+ */
+@SpringBootTest(properties = "workshift.projection.interval=PT1H")
+@AutoConfigureMockMvc
+class ShopSummaryProjectorTest {
+
+    private static final LocalDateTime MIDNIGHT_JAN_1_2024 = LocalDate.of(2024, 1, 1).atStartOfDay();
+    private static final Duration EIGHT_HOURS = Duration.ofHours(8);
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Autowired
+    ShopRepository shopRepository;
+
+    @Autowired
+    UserRepository userRepository;
+
+    @Autowired
+    ShopSummaryProjector shopSummaryProjector;
+
+    @Autowired
+    ShiftJournal shiftJournal;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    EntityManager entityManager;
+
+    @Test
+    public void summaryOfAddedAndAssignedShifts() throws Exception {
+        Shop shop = shopRepository.save(Shop.create());
+        User user = userRepository.save(User.create("Bent Jørgensen"));
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/shops/%s/shifts".formatted(shop.getId()))
+                        .content(objectMapper.writeValueAsString(List.of(
+                                Shift.create(MIDNIGHT_JAN_1_2024, EIGHT_HOURS),
+                                Shift.create(MIDNIGHT_JAN_1_2024.plusDays(1), EIGHT_HOURS))))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(MockMvcResultMatchers.status().isCreated());
+        Shift first = shopRepository.findWithShiftsById(shop.getId()).orElseThrow().getAvailableShifts().get(0);
+        mockMvc.perform(MockMvcRequestBuilders.put("/api/shops/%s/shift/%s/assign/%s"
+                        .formatted(shop.getId(), first.getId(), user.getId())))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+
+        summary(shop)
+                .andExpect(MockMvcResultMatchers.jsonPath("$.shifts").value(0));
+
+        shopSummaryProjector.projectCommitted();
+
+        summary(shop)
+                .andExpect(MockMvcResultMatchers.jsonPath("$.shifts").value(2))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.assigned").value(1))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.available").value(1));
+    }
+
+    @Test
+    public void eventsCommittedAfterLaterOnesAreProjectedOnceCommitted() throws Exception {
+        Shop shop = shopRepository.save(Shop.create());
+        CountDownLatch appended = new CountDownLatch(1);
+        CountDownLatch commit = new CountDownLatch(1);
+
+        // takes its journal position first and commits last
+        Thread slow = new Thread(() -> transactionTemplate.executeWithoutResult(status -> {
+            shiftJournal.added(shop.getId(), List.of(Shift.create(MIDNIGHT_JAN_1_2024, EIGHT_HOURS)));
+            entityManager.flush();
+            appended.countDown();
+            await(commit);
+        }));
+        slow.start();
+        assertTrue(appended.await(10, TimeUnit.SECONDS));
+        transactionTemplate.executeWithoutResult(status ->
+                shiftJournal.added(shop.getId(), List.of(Shift.create(MIDNIGHT_JAN_1_2024.plusDays(1), EIGHT_HOURS))));
+
+        shopSummaryProjector.projectCommitted();
+        summary(shop)
+                .andExpect(MockMvcResultMatchers.jsonPath("$.shifts").value(1));
+
+        commit.countDown();
+        slow.join();
+        shopSummaryProjector.projectCommitted();
+
+        summary(shop)
+                .andExpect(MockMvcResultMatchers.jsonPath("$.shifts").value(2))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.available").value(2));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private ResultActions summary(Shop shop) throws Exception {
+        return mockMvc.perform(MockMvcRequestBuilders.get("/api/shops/%s/summary".formatted(shop.getId())))
+                .andDo(MockMvcResultHandlers.print())
+                .andExpect(MockMvcResultMatchers.status().isOk());
+    }
+
+}
@@ -0,0 +1,145 @@
+package db.workshift;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import db.workshift.users.User;
+import db.workshift.users.UserRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The number of sql statements per endpoint must not grow with the number of shifts and assignees in a shop,
+ * the shop here has more assignees than any endpoint is allowed statements, so an N+1 select fails the build.
+ * The statements are those the request itself runs, as counted per request by the StatementCounter,
+ * and the scheduled jobs are off so none of theirs get in between.
+ */
+@SpringBootTest(properties = "workshift.scheduling.enabled=false")
+@AutoConfigureMockMvc
+class StatementCountTest {
+
+    private static final LocalDateTime MIDNIGHT_JAN_1_2024 = LocalDate.of(2024, 1, 1).atStartOfDay();
+    private static final Duration EIGHT_HOURS = Duration.ofHours(8);
+    private static final int SHIFTS = 60;
+    /**
+     * the budget before the journal, plus its one batched insert
+     */
+    private static final int MAXIMUM_STATEMENTS = 6 + 1;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Autowired
+    ShopRepository shopRepository;
+
+    @Autowired
+    UserRepository userRepository;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    private Shop shop;
+    private List<Shift> availableShifts;
+    private User user;
+
+    @BeforeEach
+    public void initData() {
+        Shop newShop = Shop.create();
+        for (int n = 0; n < SHIFTS; n++) {
+            newShop.addShift(MIDNIGHT_JAN_1_2024.plus(EIGHT_HOURS.multipliedBy(n)), EIGHT_HOURS);
+        }
+        /* every other shift taken, each by a user of its own */
+        List<Shift> shifts = newShop.getAvailableShifts();
+        for (int n = 0; n < shifts.size(); n += 2) {
+            shifts.get(n).assign(userRepository.save(User.create("user " + n)));
+        }
+        shop = shopRepository.save(newShop);
+        availableShifts = shop.getAvailableShifts();
+        user = userRepository.save(User.create("Bent Jørgensen"));
+    }
+
+    @Test
+    public void listShifts() throws Exception {
+        assertStatements(MockMvcRequestBuilders.get("/api/shops/%s/shifts".formatted(shop.getId()))
+                .param("from", MIDNIGHT_JAN_1_2024.toString())
+                .param("to", MIDNIGHT_JAN_1_2024.plusDays(30).toString())
+                .param("size", String.valueOf(SHIFTS)));
+    }
+
+    @Test
+    public void assignUserToShift() throws Exception {
+        assertStatements(MockMvcRequestBuilders.put("/api/shops/%s/shift/%s/assign/%s"
+                .formatted(shop.getId(), availableShifts.get(0).getId(), user.getId())));
+    }
+
+    @Test
+    public void assignUsersToShifts() throws Exception {
+        List<ShiftAssignment> assignments = new ArrayList<>();
+        for (int n = 0; n < 10; n++) {
+            assignments.add(new ShiftAssignment(
+                    availableShifts.get(n).getId(),
+                    userRepository.save(User.create("bulk user " + n)).getId()));
+        }
+        assertStatements(MockMvcRequestBuilders.put("/api/shops/%s/shifts/assignments".formatted(shop.getId()))
+                .content(objectMapper.writeValueAsString(assignments)));
+    }
+
+    @Test
+    public void addShift() throws Exception {
+        Shift shift = Shift.create(MIDNIGHT_JAN_1_2024.plusDays(60), EIGHT_HOURS);
+        assertStatements(MockMvcRequestBuilders.post("/api/shops/%s/shift".formatted(shop.getId()))
+                .content(objectMapper.writeValueAsString(shift)));
+    }
+
+    @Test
+    public void addUser() throws Exception {
+        assertStatements(MockMvcRequestBuilders.post("/api/shops/%s/user/%s".formatted(shop.getId(), user.getId())));
+    }
+
+    private void assertStatements(MockHttpServletRequestBuilder request) throws Exception {
+        long requestsBefore = requests();
+        double statementsBefore = statements();
+
+        mockMvc.perform(request.contentType(MediaType.APPLICATION_JSON))
+                .andExpect(MockMvcResultMatchers.status().is2xxSuccessful());
+
+        assertEquals(requestsBefore + 1, requests());
+        long statements = Math.round(statements() - statementsBefore);
+        assertTrue(statements <= MAXIMUM_STATEMENTS,
+                "%s statements, expected at most %s".formatted(statements, MAXIMUM_STATEMENTS));
+    }
+
+    private long requests() {
+        return statementsPerRequest().stream().mapToLong(DistributionSummary::count).sum();
+    }
+
+    private double statements() {
+        return statementsPerRequest().stream().mapToDouble(DistributionSummary::totalAmount).sum();
+    }
+
+    private Collection<DistributionSummary> statementsPerRequest() {
+        return meterRegistry.find("workshift.http.statements").summaries();
+    }
+
+}
@@ -0,0 +1,66 @@
+package db.workshift;
+
+import db.workshift.users.User;
+import db.workshift.users.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultHandlers;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.UUID;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class WorkedHoursControllerTest {
+
+    private static final LocalDate JAN_1_2024 = LocalDate.of(2024, 1, 1);
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    ShopRepository shopRepository;
+
+    @Autowired
+    UserRepository userRepository;
+
+    @Test
+    public void workedHoursOfAShiftOverMidnight() throws Exception {
+        User user = userRepository.save(User.create("Bent Jørgensen"));
+        Shop shop = Shop.create();
+        Shift shift = shop.addShift(JAN_1_2024.atTime(22, 0), Duration.ofHours(8));
+        shop = shopRepository.save(shop);
+
+        mockMvc.perform(MockMvcRequestBuilders.put("/api/shops/%s/shift/%s/assign/%s"
+                        .formatted(shop.getId(), shift.getId(), user.getId())))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/users/%s/hours".formatted(user.getId()))
+                        .param("from", JAN_1_2024.toString())
+                        .param("to", JAN_1_2024.plusDays(6).toString()))
+                .andDo(MockMvcResultHandlers.print())
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.length()").value(2))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].day").value("2024-01-01"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].hours").value(2.0))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].shifts").value(1))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[1].day").value("2024-01-02"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[1].hours").value(6.0))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[1].shifts").value(0));
+    }
+
+    @Test
+    public void workedHoursOfUnknownUser() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/users/%s/hours".formatted(UUID.randomUUID()))
+                        .param("from", JAN_1_2024.toString())
+                        .param("to", JAN_1_2024.toString()))
+                .andExpect(MockMvcResultMatchers.status().isNotFound());
+    }
+
+}
@@ -0,0 +1,136 @@
+package db.workshift;
+
+import db.workshift.users.User;
+import db.workshift.users.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class WorkshiftBrainConcurrencyTest {
+
+    private static final LocalDateTime MIDNIGHT_JAN_1_2024 = LocalDate.of(2024, 1, 1).atStartOfDay();
+    private static final Duration EIGHT_HOURS = Duration.ofHours(8);
+    private static final int SHOPS = 3;
+    private static final int SHIFTS_PER_SHOP = 60;
+    private static final int USERS = 6;
+    private static final int THREADS = 16;
+
+    @Autowired
+    WorkshiftBrain workshiftBrain;
+
+    @Autowired
+    ShopRepository shopRepository;
+
+    @Autowired
+    ShiftRepository shiftRepository;
+
+    @Autowired
+    UserRepository userRepository;
+
+    private record Attempt(Shop shop, Shift shift, User user) {
+    }
+
+    @Test
+    public void parallelAssignmentsNeverBreakTheRules() throws Exception {
+        List<User> users = new ArrayList<>();
+        for (int n = 0; n < USERS; n++) {
+            users.add(userRepository.save(User.create("user " + n)));
+        }
+
+        /* overlapping 8 hour shifts every 4 hours, the same times in every shop */
+        List<Attempt> attempts = new ArrayList<>();
+        for (int n = 0; n < SHOPS; n++) {
+            Shop shop = Shop.create();
+            for (int m = 0; m < SHIFTS_PER_SHOP; m++) {
+                shop.addShift(MIDNIGHT_JAN_1_2024.plusHours(4L * m), EIGHT_HOURS);
+            }
+            Shop persistedShop = shopRepository.save(shop);
+            for (Shift shift : persistedShop.getAvailableShifts()) {
+                users.forEach(user -> attempts.add(new Attempt(persistedShop, shift, user)));
+            }
+        }
+        Collections.shuffle(attempts, new Random(42));
+
+        Map<Shift, Attempt> accepted = new ConcurrentHashMap<>();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (Attempt attempt : attempts) {
+                futures.add(executor.submit(() -> {
+                    try {
+                        workshiftBrain.assignUserToShift(attempt.shop().getId(), attempt.shift().getId(), attempt.user().getId());
+                        Attempt previous = accepted.put(attempt.shift(), attempt);
+                        assertNull(previous, "shift assigned twice");
+                    } catch (ShiftNotFoundException | RuleViolationException e) {
+                        /* rejected, fine */
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertFalse(accepted.isEmpty());
+
+        for (Attempt attempt : accepted.values()) {
+            Shift persistedShift = shiftRepository.findById(attempt.shift().getId()).orElseThrow();
+            assertEquals(attempt.user().getId(), persistedShift.getAssignee().getId());
+        }
+
+        /* a user never works overlapping shifts, not even in different shops */
+        Map<UUID, List<Shift>> shiftsPerUser = accepted.values().stream()
+                .collect(Collectors.groupingBy(attempt -> attempt.user().getId(),
+                        Collectors.mapping(Attempt::shift, Collectors.toList())));
+        for (List<Shift> shifts : shiftsPerUser.values()) {
+            shifts.sort(Comparator.comparing(Shift::getStart));
+            for (int n = 1; n < shifts.size(); n++) {
+                assertFalse(shifts.get(n).getStart().isBefore(shifts.get(n - 1).getEnd()), "overlapping shifts");
+            }
+        }
+
+        /*
+        within a shop, with 8 hour shifts, the 24 hour rule means any two shifts of a user start at least 24 hours apart
+        */
+        Map<List<UUID>, List<Shift>> shiftsPerShopAndUser = accepted.values().stream()
+                .collect(Collectors.groupingBy(attempt -> List.of(attempt.shop().getId(), attempt.user().getId()),
+                        Collectors.mapping(Attempt::shift, Collectors.toList())));
+        for (List<Shift> shifts : shiftsPerShopAndUser.values()) {
+            shifts.sort(Comparator.comparing(Shift::getStart));
+            int daysInRow = 1;
+            for (int n = 1; n < shifts.size(); n++) {
+                LocalDateTime previousStart = shifts.get(n - 1).getStart();
+                LocalDateTime start = shifts.get(n).getStart();
+                assertTrue(Duration.between(previousStart, start).toHours() >= 24, "more than 8 hours within 24 hours");
+
+                daysInRow = previousStart.toLocalDate().plusDays(1).equals(start.toLocalDate()) ? daysInRow + 1 : 1;
+                assertTrue(daysInRow <= 5, "more than 5 days in a row");
+            }
+        }
+    }
+
+}
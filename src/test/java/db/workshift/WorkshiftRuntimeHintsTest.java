@@ -0,0 +1,30 @@
+package db.workshift;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.TypeReference;
+import org.springframework.aot.hint.predicate.RuntimeHintsPredicates;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WorkshiftRuntimeHintsTest {
+
+    private final RuntimeHints hints = new RuntimeHints();
+
+    WorkshiftRuntimeHintsTest() {
+        new WorkshiftRuntimeHints().registerHints(hints, getClass().getClassLoader());
+    }
+
+    @Test
+    public void feedDeltasCanBeWrittenAsJson() {
+        assertTrue(RuntimeHintsPredicates.reflection().onMethod(ShiftDelta.class, "shiftId").test(hints));
+        assertTrue(RuntimeHintsPredicates.reflection().onMethod(ScheduleChange.class, "assigned").test(hints));
+    }
+
+    @Test
+    public void cachingProviderAndRegionsAreIncluded() {
+        assertTrue(RuntimeHintsPredicates.reflection().onType(TypeReference.of(WorkshiftRuntimeHints.CACHING_PROVIDER)).test(hints));
+        assertTrue(RuntimeHintsPredicates.resource().forResource("application.conf").test(hints));
+    }
+
+}
@@ -0,0 +1,47 @@
+package db.workshift.users;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class UserCacheTest {
+
+    @Autowired
+    UserRepository userRepository;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    @Test
+    public void savingANewUserIsOneInsert() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        userRepository.save(User.create("Bent Jørgensen"));
+
+        assertEquals(1, statistics.getPrepareStatementCount(), "more than the insert");
+        assertEquals(1, statistics.getEntityInsertCount());
+    }
+
+    @Test
+    public void repeatedLookupsAreServedFromTheSecondLevelCache() {
+        User user = userRepository.save(User.create("Bent Jørgensen"));
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        userRepository.findById(user.getId()).orElseThrow();
+        userRepository.findById(user.getId()).orElseThrow();
+
+        assertEquals(0, statistics.getPrepareStatementCount(), "users table was queried");
+        assertTrue(statistics.getSecondLevelCacheHitCount() >= 2);
+    }
+
+}